@@ -2,7 +2,7 @@ package net.querz.mcaselector.changer.fields;
 
 import net.querz.mcaselector.changer.Field;
 import net.querz.mcaselector.changer.FieldType;
-import net.querz.mcaselector.io.GroovyScriptEngine;
+import net.querz.mcaselector.io.CompiledGroovyScript;
 import net.querz.mcaselector.io.mca.ChunkData;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -13,7 +13,8 @@ public class ScriptField extends Field<String> {
 
 	private static final Logger LOGGER = LogManager.getLogger(ScriptField.class);
 
-	private final GroovyScriptEngine engine = new GroovyScriptEngine();
+	// the script is compiled on first use and has an instance for each thread
+	private CompiledGroovyScript script;
 
 	public ScriptField() {
 		super(FieldType.SCRIPT);
@@ -27,7 +28,9 @@ public class ScriptField extends Field<String> {
 	@Override
 	public boolean parseNewValue(String s) {
 		try {
-			engine.eval(s);
+			// the script is only compiled when the field is applied
+			CompiledGroovyScript.validate(s);
+			script = new CompiledGroovyScript(s, true);
 			setNewValue(s);
 			return true;
 		} catch (ScriptException e) {
@@ -37,25 +40,34 @@ public class ScriptField extends Field<String> {
 
 	@Override
 	public void change(ChunkData root) {
+		if (script == null) {
+			return;
+		}
 		try {
-			engine.run("apply", root);
-		} catch (ScriptException | NoSuchMethodException e) {
+			script.get().apply(root);
+		} catch (ScriptException e) {
 			LOGGER.warn("failed to invoke apply function in custom script");
 		}
 	}
 
 	public void before() {
+		if (script == null) {
+			return;
+		}
 		try {
-			engine.run("before");
-		} catch (ScriptException | NoSuchMethodException ex) {
+			script.get().before();
+		} catch (ScriptException ex) {
 			LOGGER.warn("failed to invoke before function in custom script", ex);
 		}
 	}
 
 	public void after() {
+		if (script == null) {
+			return;
+		}
 		try {
-			engine.run("after");
-		} catch (ScriptException | NoSuchMethodException ex) {
+			script.get().after();
+		} catch (ScriptException ex) {
 			LOGGER.warn("failed to invoke after function in custom script", ex);
 		}
 	}
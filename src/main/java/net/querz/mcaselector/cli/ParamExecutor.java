@@ -10,6 +10,8 @@ import net.querz.mcaselector.filter.FilterParser;
 import net.querz.mcaselector.filter.filters.GroupFilter;
 import net.querz.mcaselector.io.*;
 import net.querz.mcaselector.io.job.*;
+import net.querz.mcaselector.io.mca.CompressionType;
+import net.querz.mcaselector.io.mca.Fragmentation;
 import net.querz.mcaselector.overlay.Overlay;
 import net.querz.mcaselector.overlay.OverlayParser;
 import net.querz.mcaselector.point.Point2i;
@@ -23,6 +25,7 @@ import net.querz.mcaselector.tile.OverlayPool;
 import org.apache.commons.cli.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import javax.script.ScriptException;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
@@ -58,6 +61,9 @@ public final class ParamExecutor {
 				change    Change NBT values in an entire world or only in chunks based on a selection
 				cache     Generate the cache images for an entire world
 				image     Generate a single image based on a selection
+				compact   Compact region files that contain unused space
+				benchmark Compare the size and speed of all chunk compression types on a sample of chunks
+				script-benchmark Compare the overhead of calling groovy script filters through the script engine and compiled
 				""")
 			.hasArg()
 			.build());
@@ -105,6 +111,30 @@ public final class ParamExecutor {
 			.longOpt("overwrite")
 			.desc("Whether to overwrite existing chunks in the target world during chunk import")
 			.build());
+		options.addOption(Option.builder()
+			.longOpt("fast-delete")
+			.desc("Only clear the header entries of deleted chunks instead of rewriting the files. The space of deleted chunks is not freed")
+			.build());
+		options.addOption(Option.builder()
+			.longOpt("waste-threshold")
+			.desc("The minimum percentage of unused space in a file to compact it in compact mode, defaults to 10")
+			.hasArg()
+			.build());
+		options.addOption(Option.builder()
+			.longOpt("compression")
+			.desc("The compression to save changed or imported chunks with: gzip, zlib, lz4 (1.20.5+) or none. Defaults to the compression of each chunk")
+			.hasArg()
+			.build());
+		options.addOption(Option.builder()
+			.longOpt("compression-level")
+			.desc("The zlib compression level from 0 to 9 used with --compression")
+			.hasArg()
+			.build());
+		options.addOption(Option.builder()
+			.longOpt("sample-size")
+			.desc("The number of chunks to sample in benchmark mode, defaults to 1000 and at most 5000, or the number of script calls in script-benchmark mode, defaults to 1000000")
+			.hasArg()
+			.build());
 		options.addOption(Option.builder()
 			.longOpt("force")
 			.desc("Whether to force NBT tags during NBT change")
@@ -255,6 +285,15 @@ public final class ParamExecutor {
 			.desc("Set the number threads to use for writing files")
 			.hasArg()
 			.build());
+		options.addOption(Option.builder()
+			.longOpt("memory-budget")
+			.desc("Set the amount of region data in MiB that can be loaded at the same time, jobs wait for other jobs to finish when this is exceeded")
+			.hasArg()
+			.build());
+		options.addOption(Option.builder()
+			.longOpt("fixed-threads")
+			.desc("Use exactly --process-threads and --write-threads instead of growing the thread pools when the machine is not saturated")
+			.build());
 
 		// all the above options should appear in --help
 		for (Option option : options.getOptions()) {
@@ -329,6 +368,7 @@ public final class ParamExecutor {
 			parseConfig();
 
 			JobHandler.setTrimSaveData(false);
+			MappedFilePointer.setEnabled(true);
 
 			String mode = line.getOptionValue("mode");
 			switch (mode) {
@@ -339,6 +379,9 @@ public final class ParamExecutor {
 				case "change" -> change(future);
 				case "cache" -> cache(future);
 				case "image" -> image(future);
+				case "compact" -> compact(future);
+				case "benchmark" -> benchmark(future);
+				case "script-benchmark" -> scriptBenchmark(future);
 
 				// for updating and debugging translations
 				case "printMissingTranslations" -> Translations.printMissingTranslations(future);
@@ -365,11 +408,11 @@ public final class ParamExecutor {
 	private void printHelp() {
 		String[] helpOrder = new String[]{
 			"help", "version", "mode", "output", "query", "selection", "source-selection", "radius", "x-offset",
-			"y-offset", "z-offset", "overwrite", "force", "sections", "render-height", "render-caves", "render-layer-only",
+			"y-offset", "z-offset", "overwrite", "fast-delete", "waste-threshold", "compression", "compression-level", "sample-size", "force", "sections", "render-height", "render-caves", "render-layer-only",
 			"render-shade", "render-water-shade", "overlay-type", "overlay-min-value", "overlay-max-value",
 			"overlay-data", "overlay-min-hue", "overlay-max-hue", "fields", "zoom-level", "world", "region", "poi", "entities",
 			"source-world", "source-region", "source-poi", "source-entities", "output-world", "output-region",
-			"output-poi", "output-entities", "debug", "process-threads", "write-threads"
+			"output-poi", "output-entities", "debug", "process-threads", "write-threads", "fixed-threads", "memory-budget"
 		};
 		Map<String, Integer> helpOptionOrderLookup = new HashMap<>();
 		for (int i = 0; i < helpOrder.length; i++) {
@@ -394,7 +437,23 @@ public final class ParamExecutor {
 		ConfigProvider.GLOBAL = new GlobalConfig();
 		ConfigProvider.GLOBAL.setDebug(line.hasOption("debug"));
 		ConfigProvider.GLOBAL.setProcessThreads(parseInt("process-threads", GlobalConfig.DEFAULT_PROCESS_THREADS, 1, 128));
-		ConfigProvider.GLOBAL.setProcessThreads(parseInt("write-threads", GlobalConfig.DEFAULT_WRITE_THREADS, 1, 128));
+		ConfigProvider.GLOBAL.setWriteThreads(parseInt("write-threads", GlobalConfig.DEFAULT_WRITE_THREADS, 1, 128));
+		ConfigProvider.GLOBAL.setAdaptiveThreads(!line.hasOption("fixed-threads"));
+		ConfigProvider.GLOBAL.setMemoryBudget(parseInt("memory-budget", GlobalConfig.DEFAULT_MEMORY_BUDGET, 16, 1 << 20));
+	}
+
+	private void parseCompression() throws ParseException {
+		if (line.hasOption("compression")) {
+			String value = line.getOptionValue("compression");
+			ConfigProvider.WORLD.setOutputCompression(switch (value.toLowerCase()) {
+				case "gzip" -> CompressionType.GZIP;
+				case "zlib" -> CompressionType.ZLIB;
+				case "lz4" -> CompressionType.LZ4;
+				case "none" -> CompressionType.UNCOMPRESSED;
+				default -> throw new ParseException(String.format("invalid compression type %s", value));
+			});
+		}
+		ConfigProvider.WORLD.setCompressionLevel(parseInt("compression-level", WorldConfig.DEFAULT_COMPRESSION_LEVEL, -1, 9));
 	}
 
 	private void printError(String msg, Object... params) {
@@ -739,6 +798,7 @@ public final class ParamExecutor {
 		Selection sourceSelection = loadSelection(true, false);
 		Selection targetSelection = loadSelection(false, false);
 		List<Range> sections = parseSections(false);
+		parseCompression();
 
 		CLIProgress progress = new CLIProgress("importing chunks");
 		progress.onDone(future);
@@ -765,25 +825,68 @@ public final class ParamExecutor {
 		ConfigProvider.WORLD.setWorldDirs(parseWorldDirectories(""));
 		GroupFilter query = parseQuery(false);
 		Selection selection = loadSelection(false, false);
+		boolean fastDelete = line.hasOption("fast-delete");
 
 		CLIProgress progress = new CLIProgress("deleting chunks");
 		progress.onDone(future);
 
 		if (query != null) {
-			ChunkFilterDeleter.deleteFilter(query, selection, progress, true);
+			ChunkFilterDeleter.deleteFilter(query, selection, progress, true, fastDelete);
 		} else if (selection != null) {
-			SelectionDeleter.deleteSelection(selection, progress);
+			SelectionDeleter.deleteSelection(selection, progress, fastDelete);
 		} else {
 			throw new ParseException("missing --query and/or --selection parameter");
 		}
 	}
 
+	private void compact(FutureTask<Boolean> future) throws ParseException {
+		ConfigProvider.WORLD = new WorldConfig();
+		ConfigProvider.WORLD.setWorldDirs(parseWorldDirectories(""));
+		Selection selection = loadSelection(false, false);
+		int wasteThreshold = parseInt("waste-threshold", 10, 0, 100);
+
+		Fragmentation before = new Fragmentation();
+		Fragmentation after = new Fragmentation();
+		CLIProgress progress = new CLIProgress("compacting files");
+		progress.onDone(() -> {
+			System.out.printf("before: %s\nafter:  %s\n", before, after);
+			future.run();
+		});
+
+		RegionCompactor.compact(selection, wasteThreshold / 100.0, before, after, progress);
+	}
+
+	private void benchmark(FutureTask<Boolean> future) throws ParseException, IOException {
+		WorldDirectories world = parseWorldDirectories("");
+		int sampleSize = parseInt("sample-size", 1000, 1, CompressionBenchmark.MAX_SAMPLE_SIZE);
+
+		List<CompressionBenchmark.Result> results = CompressionBenchmark.benchmark(world, sampleSize, new CLIProgress("benchmarking compression"));
+		if (!results.isEmpty()) {
+			System.out.printf("%d chunks, %d KiB uncompressed\n", results.get(0).chunks(), results.get(0).uncompressedBytes() / 1024);
+		}
+		for (CompressionBenchmark.Result result : results) {
+			System.out.println(result);
+		}
+		future.run();
+	}
+
+	private void scriptBenchmark(FutureTask<Boolean> future) throws ParseException, ScriptException {
+		int invocations = parseInt("sample-size", 1000000, 1, Integer.MAX_VALUE);
+
+		List<ScriptBenchmark.Result> results = ScriptBenchmark.benchmark(invocations, ConfigProvider.GLOBAL.getProcessThreads(), new CLIProgress("benchmarking scripts"));
+		for (ScriptBenchmark.Result result : results) {
+			System.out.println(result);
+		}
+		future.run();
+	}
+
 	private void change(FutureTask<Boolean> future) throws ParseException {
 		ConfigProvider.WORLD = new WorldConfig();
 		ConfigProvider.WORLD.setWorldDirs(parseWorldDirectories(""));
 		Selection selection = loadSelection(false, false);
 		boolean force = line.hasOption("force");
 		List<Field<?>> fields = parseFields(true);
+		parseCompression();
 
 		CLIProgress progress = new CLIProgress("changing fields");
 		progress.onDone(future);
@@ -6,6 +6,7 @@ import net.querz.mcaselector.config.adapter.ColorAdapter;
 import net.querz.mcaselector.config.adapter.FileAdapter;
 import net.querz.mcaselector.config.adapter.LocaleAdapter;
 import net.querz.mcaselector.io.FileHelper;
+import net.querz.mcaselector.io.cache.TileCacheFormat;
 import net.querz.mcaselector.logging.GsonNamingStrategy;
 import net.querz.mcaselector.logging.Logging;
 import net.querz.mcaselector.text.Translation;
@@ -34,9 +35,13 @@ public class GlobalConfig extends Config {
 	public static final Locale DEFAULT_LOCALE = Locale.UK;
 	public static final int DEFAULT_PROCESS_THREADS = Math.min(Math.max(Runtime.getRuntime().availableProcessors() - 2, 1), 4);
 	public static final int DEFAULT_WRITE_THREADS = Math.min(Math.max(Runtime.getRuntime().availableProcessors(), 1), 4);
+	public static final boolean DEFAULT_ADAPTIVE_THREADS = true;
+	// raw region data takes up several times its size once it has been decoded into nbt
+	public static final int DEFAULT_MEMORY_BUDGET = (int) Math.max(Math.min(Runtime.getRuntime().maxMemory() / 8 / 1_048_576, 1 << 20), 64);
 	public static final int DEFAULT_MAX_LOADED_FILES = (int) Math.min(Math.max(Math.ceil(Runtime.getRuntime().maxMemory() / 1_000_000_000D) * 2, 1), 16);
 	public static final boolean DEFAULT_DEBUG = false;
 	public static final String DEFAULT_MC_SAVES_DIR = FileHelper.getMCSavesDir();
+	public static final TileCacheFormat DEFAULT_TILE_CACHE_FORMAT = TileCacheFormat.PNG;
 
 	// attributes
 	private Locale locale = DEFAULT_LOCALE;
@@ -45,9 +50,12 @@ public class GlobalConfig extends Config {
 	private Color pasteChunksColor = DEFAULT_PASTE_CHUNKS_COLOR;
 	private int processThreads = DEFAULT_PROCESS_THREADS;
 	private int writeThreads = DEFAULT_WRITE_THREADS;
+	private boolean adaptiveThreads = DEFAULT_ADAPTIVE_THREADS;
+	private int memoryBudget = DEFAULT_MEMORY_BUDGET;
 	private int maxLoadedFiles = DEFAULT_MAX_LOADED_FILES;
 	private String mcSavesDir = DEFAULT_MC_SAVES_DIR;
 	private boolean debug = DEFAULT_DEBUG;
+	private TileCacheFormat tileCacheFormat = DEFAULT_TILE_CACHE_FORMAT;
 	private TreeMap<Long, RecentWorld> recentWorlds = new TreeMap<>();
 
 	public Locale getLocale() {
@@ -99,6 +107,28 @@ public class GlobalConfig extends Config {
 		this.writeThreads = writeThreads;
 	}
 
+	// when enabled, processThreads and writeThreads are the minimum pool sizes
+	public boolean getAdaptiveThreads() {
+		return adaptiveThreads;
+	}
+
+	public void setAdaptiveThreads(boolean adaptiveThreads) {
+		this.adaptiveThreads = adaptiveThreads;
+	}
+
+	// MiB of region data that jobs are allowed to hold at the same time
+	public int getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	public long getMemoryBudgetBytes() {
+		return memoryBudget * 1_048_576L;
+	}
+
+	public void setMemoryBudget(int memoryBudget) {
+		this.memoryBudget = memoryBudget;
+	}
+
 	public int getMaxLoadedFiles() {
 		return maxLoadedFiles;
 	}
@@ -115,6 +145,14 @@ public class GlobalConfig extends Config {
 		this.mcSavesDir = mcSavesDir;
 	}
 
+	public TileCacheFormat getTileCacheFormat() {
+		return tileCacheFormat;
+	}
+
+	public void setTileCacheFormat(TileCacheFormat tileCacheFormat) {
+		this.tileCacheFormat = tileCacheFormat;
+	}
+
 	public boolean getDebug() {
 		return debug;
 	}
@@ -4,6 +4,7 @@ import com.google.gson.*;
 import net.querz.mcaselector.config.adapter.FileAdapter;
 import net.querz.mcaselector.config.adapter.WorldDirectoriesAdapter;
 import net.querz.mcaselector.io.WorldDirectories;
+import net.querz.mcaselector.io.mca.CompressionType;
 import net.querz.mcaselector.logging.GsonNamingStrategy;
 import net.querz.mcaselector.math.Bits;
 import org.apache.logging.log4j.LogManager;
@@ -12,6 +13,7 @@ import java.io.File;
 import java.lang.reflect.Modifier;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.Deflater;
 
 public class WorldConfig extends Config {
 
@@ -32,6 +34,8 @@ public class WorldConfig extends Config {
 	public static final boolean DEFAULT_SMOOTH_OVERLAYS = true;
 	public static final String DEFAULT_TILEMAP_BACKGROUND = "BLACK";
 	public static final boolean DEFAULT_SHOW_NONEXISTENT_REGIONS = true;
+	public static final CompressionType DEFAULT_OUTPUT_COMPRESSION = null;
+	public static final int DEFAULT_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
 
 	// transient values
 	private transient File regionDir = null;
@@ -51,6 +55,9 @@ public class WorldConfig extends Config {
 	private boolean smoothOverlays = DEFAULT_SMOOTH_OVERLAYS;
 	private String tileMapBackground = DEFAULT_TILEMAP_BACKGROUND;
 	private boolean showNonexistentRegions = DEFAULT_SHOW_NONEXISTENT_REGIONS;
+	// null keeps the compression of each chunk
+	private CompressionType outputCompression = DEFAULT_OUTPUT_COMPRESSION;
+	private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
 
 	private static final Logger LOGGER = LogManager.getLogger(WorldConfig.class);
 
@@ -169,6 +176,22 @@ public class WorldConfig extends Config {
 		this.showNonexistentRegions = showNonexistentRegions;
 	}
 
+	public CompressionType getOutputCompression() {
+		return outputCompression;
+	}
+
+	public void setOutputCompression(CompressionType outputCompression) {
+		this.outputCompression = outputCompression;
+	}
+
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public void setCompressionLevel(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
 	@Override
 	public void save() {
 		save(gsonInstance, new File(cacheDir, "world_settings.json"));
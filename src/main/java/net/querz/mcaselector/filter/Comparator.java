@@ -2,28 +2,36 @@ package net.querz.mcaselector.filter;
 
 public enum Comparator {
 
-	EQUAL("="),
-	NOT_EQUAL("\u2260", "!="),
-	SMALLER("<"),
-	LARGER(">"),
-	LARGER_EQUAL("\u2265", ">="),
-	SMALLER_EQUAL("\u2264", "<="),
-	CONTAINS("\u2283", "contains"),
-	CONTAINS_NOT("\u2285", "!contains"),
-	INTERSECTS("\u2229", "intersects");
+	EQUAL("=", 0.1),
+	NOT_EQUAL("\u2260", "!=", 0.9),
+	SMALLER("<", 0.5),
+	LARGER(">", 0.5),
+	LARGER_EQUAL("\u2265", ">=", 0.5),
+	SMALLER_EQUAL("\u2264", "<=", 0.5),
+	CONTAINS("\u2283", "contains", 0.2),
+	CONTAINS_NOT("\u2285", "!contains", 0.8),
+	INTERSECTS("\u2229", "intersects", 0.3);
 
 	private final String string;
 	private final String query;
+	private final double selectivity;
 
-	Comparator(String string) {
+	Comparator(String string, double selectivity) {
 		this.string = this.query = string;
+		this.selectivity = selectivity;
 	}
 
 	// string is the representation used to display the comparator in UI
 	// query is the representation used in headless queries
-	Comparator(String string, String query) {
+	Comparator(String string, String query, double selectivity) {
 		this.string = string;
 		this.query = query;
+		this.selectivity = selectivity;
+	}
+
+	// estimated share of chunks for which a filter with this comparator matches
+	public double getSelectivity() {
+		return selectivity;
 	}
 
 	@Override
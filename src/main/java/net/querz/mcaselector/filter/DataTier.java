@@ -0,0 +1,23 @@
+package net.querz.mcaselector.filter;
+
+// the data a filter needs to be evaluated for a chunk, from the cheapest to the most expensive to load.
+// each tier includes all tiers before it.
+public enum DataTier {
+
+	// only the location of the chunk
+	COORDINATES,
+	// the region file header with the timestamp of the chunk
+	HEADER,
+	// scalar values of the region chunk, see Filter.getRequiredFields()
+	SCALAR,
+	// the entire region chunk
+	FULL,
+	// the region chunk and the entities chunk
+	ENTITIES,
+	// the region chunk, the entities chunk and the poi chunk
+	POI;
+
+	public static DataTier max(DataTier a, DataTier b) {
+		return a.compareTo(b) >= 0 ? a : b;
+	}
+}
@@ -1,6 +1,7 @@
 package net.querz.mcaselector.filter;
 
 import net.querz.mcaselector.io.mca.ChunkData;
+import net.querz.mcaselector.io.mca.ChunkField;
 import java.io.Serializable;
 
 public abstract class Filter<T> implements Serializable {
@@ -62,6 +63,38 @@ public abstract class Filter<T> implements Serializable {
 		return false;
 	}
 
+	// returns the scalar chunk fields this filter reads, or null if it needs the entire chunk data.
+	// chunks that haven't been decoded yet only have to scan these fields instead of being parsed.
+	public ChunkField[] getRequiredFields() {
+		return null;
+	}
+
+	// the least data that has to be loaded to evaluate this filter
+	public DataTier getDataTier() {
+		return getRequiredFields() != null ? DataTier.SCALAR : DataTier.FULL;
+	}
+
+	// evaluates this filter when only the data up to the given tier has been loaded.
+	// returns null if the result depends on data that hasn't been loaded.
+	public Boolean matches(ChunkData data, DataTier available) {
+		if (getDataTier().compareTo(available) > 0) {
+			return null;
+		}
+		return matches(data);
+	}
+
+	// estimated relative cost of evaluating this filter for a single chunk, used to plan the evaluation order in groups.
+	// 1 is reading the header, 10 is reading a scalar value, 100 is parsing the entire chunk.
+	public int getCost() {
+		return getType().getCost();
+	}
+
+	// estimated share of chunks that match this filter
+	public double getSelectivity() {
+		Comparator comparator = getComparator();
+		return comparator == null ? 0.5 : comparator.getSelectivity();
+	}
+
 	public abstract T getFilterValue();
 
 	public abstract void setFilterValue(String raw);
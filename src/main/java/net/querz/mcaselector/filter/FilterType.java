@@ -10,33 +10,35 @@ public enum FilterType {
 
 	GROUP("Group", GroupFilter::new, Format.GROUP),
 	NOT_GROUP("Not Group", () -> new GroupFilter(true), Format.GROUP),
-	DATA_VERSION("DataVersion", DataVersionFilter::new, Format.NUMBER),
-	INHABITED_TIME("InhabitedTime", InhabitedTimeFilter::new, Format.NUMBER),
-	X_POS("xPos", XPosFilter::new, Format.NUMBER),
-	Y_POS("yPos", YPosFilter::new, Format.NUMBER),
-	Z_POS("zPos", ZPosFilter::new, Format.NUMBER),
-	TIMESTAMP("Timestamp", TimestampFilter::new, Format.NUMBER),
-	LAST_UPDATE("LastUpdate", LastUpdateFilter::new, Format.NUMBER),
-	PALETTE("Palette", PaletteFilter::new, Format.TEXT),
-	BIOME("Biome", BiomeFilter::new, Format.TEXT),
-	STATUS("Status", StatusFilter::new, Format.TEXT),
-	PLAYER_DATA("PlayerLocation", PlayerLocationFilter::new, Format.FILE),
-	PLAYER_SPAWN("PlayerSpawn", PlayerSpawnFilter::new, Format.FILE),
-	SELECTION("Selection", SelectionFilter::new, Format.FILE),
-	LIGHT_POPULATED("LightPopulated", LightPopulatedFilter::new, Format.NUMBER),
-	ENTITIES("Entities", EntityFilter::new, Format.TEXT),
-	STRUCTURES("Structures", StructureFilter::new, Format.TEXT),
-	ENTITY_AMOUNT("#Entities", EntityAmountFilter::new, Format.NUMBER),
-	PROTO_ENTITY_AMOUNT("#ProtoEntities", ProtoEntityAmountFilter::new, Format.NUMBER),
-	TILE_ENTITY_AMOUNT("#TileEntities", TileEntityAmountFilter::new, Format.NUMBER),
-	CIRCLE("Circle", CircleFilter::new, Format.TEXT),
-	BORDER("Border", BorderFilter::new, Format.NUMBER),
-	CUSTOM("Custom", CustomFilter::new, Format.TEXT),
-	SCRIPT("Script", CustomFilter::new, Format.TEXT, false);
+	DATA_VERSION("DataVersion", DataVersionFilter::new, Format.NUMBER, 10),
+	INHABITED_TIME("InhabitedTime", InhabitedTimeFilter::new, Format.NUMBER, 10),
+	X_POS("xPos", XPosFilter::new, Format.NUMBER, 1),
+	Y_POS("yPos", YPosFilter::new, Format.NUMBER, 100),
+	Z_POS("zPos", ZPosFilter::new, Format.NUMBER, 1),
+	TIMESTAMP("Timestamp", TimestampFilter::new, Format.NUMBER, 1),
+	LAST_UPDATE("LastUpdate", LastUpdateFilter::new, Format.NUMBER, 10),
+	PALETTE("Palette", PaletteFilter::new, Format.TEXT, 300),
+	BIOME("Biome", BiomeFilter::new, Format.TEXT, 200),
+	STATUS("Status", StatusFilter::new, Format.TEXT, 10),
+	PLAYER_DATA("PlayerLocation", PlayerLocationFilter::new, Format.FILE, 5),
+	PLAYER_SPAWN("PlayerSpawn", PlayerSpawnFilter::new, Format.FILE, 5),
+	SELECTION("Selection", SelectionFilter::new, Format.FILE, 5),
+	LIGHT_POPULATED("LightPopulated", LightPopulatedFilter::new, Format.NUMBER, 100),
+	ENTITIES("Entities", EntityFilter::new, Format.TEXT, 150),
+	STRUCTURES("Structures", StructureFilter::new, Format.TEXT, 110),
+	ENTITY_AMOUNT("#Entities", EntityAmountFilter::new, Format.NUMBER, 150),
+	PROTO_ENTITY_AMOUNT("#ProtoEntities", ProtoEntityAmountFilter::new, Format.NUMBER, 110),
+	TILE_ENTITY_AMOUNT("#TileEntities", TileEntityAmountFilter::new, Format.NUMBER, 110),
+	CIRCLE("Circle", CircleFilter::new, Format.TEXT, 5),
+	BORDER("Border", BorderFilter::new, Format.NUMBER, 100),
+	CUSTOM("Custom", CustomFilter::new, Format.TEXT, 1000),
+	SCRIPT("Script", CustomFilter::new, Format.TEXT, 1000, false);
 
 	private final String string;
 	private final Supplier<? extends Filter<?>> creator;
 	private final Format format;
+	// estimated relative cost of evaluating a filter of this type for a single chunk, see Filter.getCost()
+	private final int cost;
 	private final boolean queue;
 
 	private static FilterType[] queuables;
@@ -52,13 +54,18 @@ public enum FilterType {
 	}
 
 	FilterType(String string, Supplier<? extends Filter<?>> creator, Format format) {
-		this(string, creator, format, true);
+		this(string, creator, format, 0, true);
 	}
 
-	FilterType(String string, Supplier<? extends Filter<?>> creator, Format format, boolean queue) {
+	FilterType(String string, Supplier<? extends Filter<?>> creator, Format format, int cost) {
+		this(string, creator, format, cost, true);
+	}
+
+	FilterType(String string, Supplier<? extends Filter<?>> creator, Format format, int cost, boolean queue) {
 		this.string = string;
 		this.creator = creator;
 		this.format = format;
+		this.cost = cost;
 		this.queue = queue;
 	}
 
@@ -71,6 +78,10 @@ public enum FilterType {
 		return format;
 	}
 
+	public int getCost() {
+		return cost;
+	}
+
 	public Filter<?> create() {
 		return creator.get();
 	}
@@ -0,0 +1,234 @@
+package net.querz.mcaselector.filter;
+
+import net.querz.mcaselector.io.mca.ChunkData;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// evaluation order of the children of a group filter.
+// children connected with AND form a clause and clauses are connected with OR, so the order of the terms
+// within a clause and the order of the clauses don't change the result. terms that are cheap and likely to fail
+// are evaluated first within a clause, clauses that are cheap and likely to match are evaluated first.
+// the estimated cost and selectivity of the filters are replaced with observed values as the plan is used,
+// and the plan is rebuilt regularly.
+public final class QueryPlan {
+
+	private static final Logger LOGGER = LogManager.getLogger(QueryPlan.class);
+
+	private static final int REPLAN_INTERVAL = 4096;
+	// only every n-th evaluation of a term is timed, because System.nanoTime() costs about as much as a cheap filter
+	private static final int TIMING_MASK = 63;
+	private static final int MIN_OBSERVATIONS = 64;
+	private static final int MIN_TIMINGS = 8;
+	// estimated nanoseconds per unit of Filter.getCost()
+	private static final double NANOS_PER_COST = 200;
+
+	// the children and their operators this plan was created for
+	private final Filter<?>[] children;
+	private final Operator[] operators;
+	private final Term[][] clauses;
+	private volatile Term[][] order;
+	private final AtomicInteger untilReplan = new AtomicInteger(REPLAN_INTERVAL);
+
+	public QueryPlan(List<Filter<?>> children) {
+		this.children = children.toArray(new Filter<?>[0]);
+		operators = new Operator[this.children.length];
+		List<Term[]> clauses = new ArrayList<>();
+		List<Term> clause = new ArrayList<>();
+		for (int i = 0; i < children.size(); i++) {
+			Filter<?> child = children.get(i);
+			operators[i] = child.getOperator();
+			// the operator of the first child is ignored
+			if (i != 0 && child.getOperator() == Operator.OR) {
+				clauses.add(clause.toArray(new Term[0]));
+				clause = new ArrayList<>();
+			}
+			clause.add(new Term(child));
+		}
+		if (!clause.isEmpty()) {
+			clauses.add(clause.toArray(new Term[0]));
+		}
+		this.clauses = clauses.toArray(new Term[0][]);
+		order = plan();
+	}
+
+	// false if children have been added, removed or moved, or if the operator of a child has changed since this plan was created
+	public boolean isValidFor(List<Filter<?>> children) {
+		if (children.size() != this.children.length) {
+			return false;
+		}
+		for (int i = 0; i < this.children.length; i++) {
+			Filter<?> child = children.get(i);
+			if (child != this.children[i] || child.getOperator() != operators[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// true if any clause matches, or if there are no children
+	public boolean matches(ChunkData data) {
+		if (untilReplan.decrementAndGet() == 0) {
+			untilReplan.set(REPLAN_INTERVAL);
+			replan();
+		}
+
+		Term[][] order = this.order;
+		if (order.length == 0) {
+			return true;
+		}
+		for (Term[] clause : order) {
+			if (matches(clause, data)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean matches(Term[] clause, ChunkData data) {
+		for (Term term : clause) {
+			if (!term.matches(data)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// evaluates the children when only the data up to the given tier has been loaded.
+	// true if any clause matches for sure, false if no clause can match, null if that depends on data that hasn't been loaded.
+	// the result of a partial evaluation doesn't say anything about the filters, so it isn't used to plan.
+	public Boolean matches(ChunkData data, DataTier available) {
+		Term[][] order = this.order;
+		if (order.length == 0) {
+			return true;
+		}
+		boolean unknown = false;
+		for (Term[] clause : order) {
+			Boolean result = matches(clause, data, available);
+			if (result == null) {
+				unknown = true;
+			} else if (result) {
+				return true;
+			}
+		}
+		return unknown ? null : false;
+	}
+
+	private static Boolean matches(Term[] clause, ChunkData data, DataTier available) {
+		boolean unknown = false;
+		for (Term term : clause) {
+			Boolean result = term.filter.matches(data, available);
+			if (result == null) {
+				unknown = true;
+			} else if (!result) {
+				return false;
+			}
+		}
+		return unknown ? null : true;
+	}
+
+	// estimated cost of evaluating all children once, in units of Filter.getCost()
+	public double getCost() {
+		double cost = 0;
+		for (Term[] clause : order) {
+			cost += cost(clause) / NANOS_PER_COST;
+		}
+		return cost;
+	}
+
+	private void replan() {
+		Term[][] order = plan();
+		if (!Arrays.deepEquals(order, this.order)) {
+			LOGGER.debug("changed evaluation order to {}", Arrays.deepToString(order));
+		}
+		this.order = order;
+	}
+
+	private Term[][] plan() {
+		Term[][] order = new Term[clauses.length][];
+		for (int i = 0; i < clauses.length; i++) {
+			order[i] = clauses[i].clone();
+			// evaluating a term is only worth its cost if it's likely to end the clause
+			Arrays.sort(order[i], java.util.Comparator.comparingDouble(t -> t.cost() / Math.max(1 - t.selectivity(), 0.001)));
+		}
+		// evaluating a clause is only worth its cost if it's likely to match
+		Arrays.sort(order, java.util.Comparator.comparingDouble(c -> cost(c) / Math.max(selectivity(c), 0.001)));
+		return order;
+	}
+
+	// expected cost of a clause when its terms are independent and evaluated in this order
+	private static double cost(Term[] clause) {
+		double cost = 0;
+		double reached = 1;
+		for (Term term : clause) {
+			cost += reached * term.cost();
+			reached *= term.selectivity();
+		}
+		return cost;
+	}
+
+	private static double selectivity(Term[] clause) {
+		double selectivity = 1;
+		for (Term term : clause) {
+			selectivity *= term.selectivity();
+		}
+		return selectivity;
+	}
+
+	private static final class Term {
+
+		private final Filter<?> filter;
+		private final LongAdder evaluated = new LongAdder();
+		private final LongAdder matched = new LongAdder();
+		private final LongAdder timed = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+		// not synchronized, only used to pick evaluations to time
+		private int counter;
+
+		private Term(Filter<?> filter) {
+			this.filter = filter;
+		}
+
+		private boolean matches(ChunkData data) {
+			boolean result;
+			if ((counter++ & TIMING_MASK) == 0) {
+				long start = System.nanoTime();
+				result = filter.matches(data);
+				nanos.add(System.nanoTime() - start);
+				timed.increment();
+			} else {
+				result = filter.matches(data);
+			}
+			evaluated.increment();
+			if (result) {
+				matched.increment();
+			}
+			return result;
+		}
+
+		private double cost() {
+			long t = timed.sum();
+			if (t >= MIN_TIMINGS) {
+				return (double) nanos.sum() / t;
+			}
+			return filter.getCost() * NANOS_PER_COST;
+		}
+
+		private double selectivity() {
+			long n = evaluated.sum();
+			if (n >= MIN_OBSERVATIONS) {
+				return (matched.sum() + 1.0) / (n + 2.0);
+			}
+			return filter.getSelectivity();
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s (cost: %.0fns, selectivity: %.2f)", filter, cost(), selectivity());
+		}
+	}
+}
@@ -7,8 +7,9 @@ import net.querz.mcaselector.filter.Comparator;
 import net.querz.mcaselector.filter.FilterType;
 import net.querz.mcaselector.filter.IntFilter;
 import net.querz.mcaselector.filter.Operator;
-import net.querz.mcaselector.io.ByteArrayPointer;
+import net.querz.mcaselector.io.DataPointer;
 import net.querz.mcaselector.io.FileHelper;
+import net.querz.mcaselector.io.MappedFilePointer;
 import net.querz.mcaselector.io.mca.ChunkData;
 import net.querz.mcaselector.io.mca.RegionMCAFile;
 import net.querz.mcaselector.point.Point2i;
@@ -18,9 +19,6 @@ import net.querz.nbt.StringTag;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
 
 public class BorderFilter extends IntFilter {
 
@@ -202,10 +200,13 @@ public class BorderFilter extends IntFilter {
 				push(key, null);
 				return null;
 			}
-			byte[] data = new byte[(int) regionMCAFile.getFile().length()];
-			try (InputStream is = Files.newInputStream(regionMCAFile.getFile().toPath(), StandardOpenOption.READ)) {
-				is.read(data);
-				regionMCAFile.loadBorderChunks(new ByteArrayPointer(data));
+			DataPointer data = MappedFilePointer.open(regionMCAFile.getFile(), FileHelper.HEADER_SIZE);
+			if (data == null) {
+				push(key, null);
+				return null;
+			}
+			try {
+				regionMCAFile.loadBorderChunks(data);
 			} catch (IOException ex) {
 				LOGGER.warn("failed to read data from {}", regionMCAFile.getFile(), ex);
 				push(key, null);
@@ -4,9 +4,6 @@ import net.querz.mcaselector.filter.*;
 import net.querz.mcaselector.io.mca.ChunkData;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.text.TextHelper;
-import net.querz.mcaselector.version.ChunkFilter;
-import net.querz.mcaselector.version.VersionController;
-import net.querz.nbt.IntTag;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -82,18 +79,11 @@ public class CircleFilter extends TextFilter<List<CircleFilter.CircleFilterDefin
 
 	@Override
 	public boolean contains(List<CircleFilterDefinition> value, ChunkData data) {
-		if (data.region() == null || data.region().getData() == null) {
+		if (data.region() == null) {
 			return false;
 		}
 
-		ChunkFilter chunkFilter = VersionController.getChunkFilter(data.region().getData().getIntOrDefault("DataVersion", 0));
-		IntTag xPos = chunkFilter.getXPos(data.region().getData());
-		IntTag zPos = chunkFilter.getZPos(data.region().getData());
-		if (xPos == null || zPos == null) {
-			return false;
-		}
-
-		Point2i chunk = new Point2i(xPos.asInt(), zPos.asInt());
+		Point2i chunk = data.region().getAbsoluteLocation();
 		for (CircleFilterDefinition circle : value) {
 			if (circle.matches(chunk)) {
 				return true;
@@ -112,6 +102,11 @@ public class CircleFilter extends TextFilter<List<CircleFilter.CircleFilterDefin
 		throw new UnsupportedOperationException("\"intersects\" not allowed in circle filter");
 	}
 
+	@Override
+	public DataTier getDataTier() {
+		return DataTier.COORDINATES;
+	}
+
 	@Override
 	public boolean matchesRegion(Point2i region) {
 		Point2i topLeft = region.regionToChunk();
@@ -1,12 +1,11 @@
 package net.querz.mcaselector.filter.filters;
 
 import net.querz.mcaselector.filter.*;
+import net.querz.mcaselector.io.ChunkScript;
+import net.querz.mcaselector.io.CompiledGroovyScript;
 import net.querz.mcaselector.io.mca.ChunkData;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import javax.script.Invocable;
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 
@@ -14,10 +13,10 @@ public class CustomFilter extends TextFilter<String> {
 
 	private static final Logger LOGGER = LogManager.getLogger(CustomFilter.class);
 
-	private static final String baseScript = "import net.querz.nbt.*; def test() {%s}";
+	private static final String baseScript = "import net.querz.nbt.*; def filter() {%s}";
 
-	private static ScriptEngine engine;
-	private static final Object lock = new Object();
+	// shared with clones, the script has an instance and a binding for each thread
+	private transient CompiledGroovyScript script;
 
 	private static final Comparator[] comparators = {
 		Comparator.EQUAL,
@@ -30,13 +29,11 @@ public class CustomFilter extends TextFilter<String> {
 
 	private CustomFilter(Operator operator, Comparator comparator, String value) {
 		super(FilterType.CUSTOM, operator, comparator, value);
-		if (engine == null) {
-			ScriptEngineManager factory = new ScriptEngineManager();
-			engine = factory.getEngineByName("Groovy");
-			engine.put("region", null);
-			engine.put("poi", null);
-			engine.put("entities", null);
-		}
+	}
+
+	private CustomFilter(Operator operator, Comparator comparator, String value, CompiledGroovyScript script) {
+		this(operator, comparator, value);
+		this.script = script;
 	}
 
 	@Override
@@ -48,12 +45,15 @@ public class CustomFilter extends TextFilter<String> {
 	@Override
 	public void setFilterValue(String raw) {
 		try {
-			String script = String.format(baseScript, raw);
-			engine.eval(script);
+			// the script is only compiled when the filter is used
+			String source = String.format(baseScript, raw);
+			CompiledGroovyScript.validate(source);
+			script = new CompiledGroovyScript(source, false);
 			setValue(raw);
 			setRawValue(raw);
 			setValid(true);
 		} catch (ScriptException e) {
+			script = null;
 			setValue(null);
 			setValid(false);
 		}
@@ -66,7 +66,7 @@ public class CustomFilter extends TextFilter<String> {
 
 	@Override
 	public Filter<String> clone() {
-		return new CustomFilter(getOperator(), getComparator(), value);
+		return new CustomFilter(getOperator(), getComparator(), value, script);
 	}
 
 	@Override
@@ -84,21 +84,27 @@ public class CustomFilter extends TextFilter<String> {
 	}
 
 	public boolean isEqual(String value, ChunkData data) {
-		synchronized (lock) {
-			engine.put("region", data.region() != null && data.region().getData() != null ? data.region().getData() : null);
-			engine.put("poi", data.poi() != null && data.poi().getData() != null ? data.poi().getData() : null);
-			engine.put("entities", data.entities() != null && data.entities().getData() != null ? data.entities().getData() : null);
-
-			try {
-				Object result = ((Invocable) engine).invokeFunction("test");
-				return result instanceof Boolean && (boolean) result;
-			} catch (ScriptException | NoSuchMethodException ex) {
-				LOGGER.warn("failed to invoke custom script", ex);
-			}
+		if (script == null) {
+			return false;
+		}
+		try {
+			ChunkScript instance = script.get();
+			instance.setVariable("region", data.region() != null && data.region().getData() != null ? data.region().getData() : null);
+			instance.setVariable("poi", data.poi() != null && data.poi().getData() != null ? data.poi().getData() : null);
+			instance.setVariable("entities", data.entities() != null && data.entities().getData() != null ? data.entities().getData() : null);
+			return instance.filter(data);
+		} catch (ScriptException ex) {
+			LOGGER.warn("failed to invoke custom script", ex);
 		}
 		return false;
 	}
 
+	@Override
+	public DataTier getDataTier() {
+		// scripts can access everything
+		return DataTier.POI;
+	}
+
 	@Override
 	public boolean contains(String value, ChunkData data) {
 		throw new UnsupportedOperationException("\"contains\" not allowed in CustomFilter");
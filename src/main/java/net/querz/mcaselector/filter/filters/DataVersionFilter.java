@@ -5,7 +5,7 @@ import net.querz.mcaselector.filter.FilterType;
 import net.querz.mcaselector.filter.IntFilter;
 import net.querz.mcaselector.filter.Operator;
 import net.querz.mcaselector.io.mca.ChunkData;
-import net.querz.nbt.IntTag;
+import net.querz.mcaselector.io.mca.ChunkField;
 
 public class DataVersionFilter extends IntFilter {
 
@@ -19,11 +19,15 @@ public class DataVersionFilter extends IntFilter {
 
 	@Override
 	protected Integer getNumber(ChunkData data) {
-		if (data.region() == null || data.region().getData() == null) {
+		if (data.region() == null || data.region().isEmpty()) {
 			return 0;
 		}
-		IntTag tag = data.region().getData().getIntTag("DataVersion");
-		return tag == null ? null : tag.asInt();
+		return data.region().getField(ChunkField.DATA_VERSION) instanceof Number n ? n.intValue() : null;
+	}
+
+	@Override
+	public ChunkField[] getRequiredFields() {
+		return new ChunkField[]{ChunkField.DATA_VERSION};
 	}
 
 	@Override
@@ -1,6 +1,7 @@
 package net.querz.mcaselector.filter.filters;
 
 import net.querz.mcaselector.filter.Comparator;
+import net.querz.mcaselector.filter.DataTier;
 import net.querz.mcaselector.filter.FilterType;
 import net.querz.mcaselector.filter.IntFilter;
 import net.querz.mcaselector.filter.Operator;
@@ -37,6 +38,11 @@ public class EntityAmountFilter extends IntFilter {
 		return entities.size();
 	}
 
+	@Override
+	public DataTier getDataTier() {
+		return DataTier.ENTITIES;
+	}
+
 	@Override
 	public void setFilterValue(String raw) {
 		super.setFilterValue(raw);
@@ -1,6 +1,7 @@
 package net.querz.mcaselector.filter.filters;
 
 import net.querz.mcaselector.filter.Comparator;
+import net.querz.mcaselector.filter.DataTier;
 import net.querz.mcaselector.filter.FilterType;
 import net.querz.mcaselector.filter.Operator;
 import net.querz.mcaselector.filter.TextFilter;
@@ -103,6 +104,11 @@ public class EntityFilter extends TextFilter<List<String>> {
 		return !contains(value, data);
 	}
 
+	@Override
+	public DataTier getDataTier() {
+		return DataTier.ENTITIES;
+	}
+
 	@Override
 	public void setFilterValue(String raw) {
 		String[] rawEntityNames = raw.replace(" ", "").split(",");
@@ -2,14 +2,21 @@ package net.querz.mcaselector.filter.filters;
 
 import net.querz.mcaselector.filter.*;
 import net.querz.mcaselector.io.mca.ChunkData;
+import net.querz.mcaselector.io.mca.ChunkField;
+import net.querz.mcaselector.io.mca.RegionChunk;
 import net.querz.mcaselector.point.Point2i;
+import net.querz.mcaselector.selection.ChunkSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 
 public class GroupFilter extends Filter<List<Filter<?>>> {
 
 	private List<Filter<?>> children = new ArrayList<>();
 	private boolean negated = false;
+	// evaluation order of the children, created when this filter is used the first time
+	private transient volatile QueryPlan plan;
 
 	public GroupFilter() {
 		super(FilterType.GROUP);
@@ -30,6 +37,7 @@ public class GroupFilter extends Filter<List<Filter<?>>> {
 
 	public int addFilter(Filter<?> filter) {
 		filter.setParent(this);
+		plan = null;
 		children.add(filter);
 		return children.size() - 1;
 	}
@@ -50,6 +58,7 @@ public class GroupFilter extends Filter<List<Filter<?>>> {
 	// returns index of where this filter was added
 	public int addFilterAfter(Filter<?> filter, Filter<?> after) {
 		filter.setParent(this);
+		plan = null;
 		int i = children.indexOf(after);
 		if (i >= 0) {
 			children.add(i + 1, filter);
@@ -60,6 +69,7 @@ public class GroupFilter extends Filter<List<Filter<?>>> {
 	}
 
 	public void removeFilter(Filter<?> filter) {
+		plan = null;
 		children.remove(filter);
 	}
 
@@ -88,21 +98,50 @@ public class GroupFilter extends Filter<List<Filter<?>>> {
 
 	@Override
 	public boolean matches(ChunkData data) {
-		boolean currentResult = true;
-		for (int i = 0; i < children.size(); i++) {
-			// skip all condition in this AND block if it is already false
-			if ((children.get(i).getOperator() == Operator.AND || i == 0) && currentResult) {
-				currentResult = children.get(i).matches(data);
-			} else if (children.get(i).getOperator() == Operator.OR) {
-				// don't check other conditions if everything before OR is already true
-				if (currentResult) {
-					return !negated;
-				}
-				// otherwise, reset currentResult
-				currentResult = children.get(i).matches(data);
+		// the children are evaluated in the order of the plan instead of left to right, which doesn't change the result
+		return negated != getPlan().matches(data);
+	}
+
+	@Override
+	public Boolean matches(ChunkData data, DataTier available) {
+		Boolean result = getPlan().matches(data, available);
+		return result == null ? null : negated != result;
+	}
+
+	private QueryPlan getPlan() {
+		QueryPlan plan = this.plan;
+		// children might have been changed through getFilterValue() or their operators might have been changed
+		if (plan == null || !plan.isValidFor(children)) {
+			this.plan = plan = new QueryPlan(children);
+		}
+		return plan;
+	}
+
+	@Override
+	public int getCost() {
+		return (int) Math.ceil(getPlan().getCost());
+	}
+
+	@Override
+	public DataTier getDataTier() {
+		DataTier tier = DataTier.COORDINATES;
+		for (Filter<?> child : children) {
+			tier = DataTier.max(tier, child.getDataTier());
+		}
+		return tier;
+	}
+
+	@Override
+	public ChunkField[] getRequiredFields() {
+		EnumSet<ChunkField> fields = EnumSet.noneOf(ChunkField.class);
+		for (Filter<?> child : children) {
+			ChunkField[] childFields = child.getRequiredFields();
+			if (childFields == null) {
+				return null;
 			}
+			fields.addAll(Arrays.asList(childFields));
 		}
-		return negated != currentResult;
+		return fields.toArray(new ChunkField[0]);
 	}
 
 	public boolean appliesToRegion(Point2i region) {
@@ -133,6 +172,53 @@ public class GroupFilter extends Filter<List<Filter<?>>> {
 		return currentResult;
 	}
 
+	// the chunks in this region that can match this filter, judging only by their location.
+	// terms that need more than the location of a chunk can't rule out any chunks.
+	// chunks that only exist in the entities or poi file don't have a location for the filters,
+	// so a chunk can also match if the filter matches a chunk without region data.
+	public ChunkSet getChunkMask(Point2i region) {
+		ChunkSet mask = new ChunkSet();
+		if (!hasCoordinateTerms()) {
+			mask.fill();
+			return mask;
+		}
+
+		// the result for a chunk without region data doesn't depend on its location
+		boolean withoutRegion;
+		try {
+			withoutRegion = !Boolean.FALSE.equals(matches(new ChunkData(null, null, null, false), DataTier.COORDINATES));
+		} catch (Exception ex) {
+			// evaluating the chunk fails the same way when it's filtered
+			withoutRegion = false;
+		}
+		if (withoutRegion) {
+			mask.fill();
+			return mask;
+		}
+
+		Point2i origin = region.regionToChunk();
+		for (int i = 0; i < 1024; i++) {
+			ChunkData data = new ChunkData(new RegionChunk(origin.add(new Point2i(i))), null, null, false);
+			try {
+				if (!Boolean.FALSE.equals(matches(data, DataTier.COORDINATES))) {
+					mask.set(i);
+				}
+			} catch (Exception ex) {
+				mask.set(i);
+			}
+		}
+		return mask;
+	}
+
+	private boolean hasCoordinateTerms() {
+		for (Filter<?> child : children) {
+			if (child instanceof GroupFilter group ? group.hasCoordinateTerms() : child.getDataTier() == DataTier.COORDINATES) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private GroupFilter resolveNegations() {
 		return resolveNegations(negated);
 	}
@@ -225,6 +311,8 @@ public class GroupFilter extends Filter<List<Filter<?>>> {
 
 	@Override
 	public void resetTempData() {
+		// the next job starts with a new plan
+		plan = null;
 		for (Filter<?> child : children) {
 			child.resetTempData();
 		}
@@ -5,10 +5,8 @@ import net.querz.mcaselector.filter.FilterType;
 import net.querz.mcaselector.filter.LongFilter;
 import net.querz.mcaselector.filter.Operator;
 import net.querz.mcaselector.io.mca.ChunkData;
+import net.querz.mcaselector.io.mca.ChunkField;
 import net.querz.mcaselector.text.TextHelper;
-import net.querz.mcaselector.version.ChunkFilter;
-import net.querz.mcaselector.version.VersionController;
-import net.querz.nbt.LongTag;
 
 public class InhabitedTimeFilter extends LongFilter {
 
@@ -22,12 +20,15 @@ public class InhabitedTimeFilter extends LongFilter {
 
 	@Override
 	protected Long getNumber(ChunkData data) {
-		if (data.region() == null || data.region().getData() == null) {
+		if (data.region() == null || data.region().isEmpty()) {
 			return 0L;
 		}
-		ChunkFilter chunkFilter = VersionController.getChunkFilter(data.region().getData().getIntOrDefault("DataVersion", 0));
-		LongTag tag = chunkFilter.getInhabitedTime(data.region().getData());
-		return tag == null ? 0L : tag.asLong();
+		return data.region().getField(ChunkField.INHABITED_TIME) instanceof Number n ? n.longValue() : 0L;
+	}
+
+	@Override
+	public ChunkField[] getRequiredFields() {
+		return new ChunkField[]{ChunkField.INHABITED_TIME};
 	}
 
 	@Override
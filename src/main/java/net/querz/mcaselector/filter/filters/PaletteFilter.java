@@ -5,6 +5,7 @@ import net.querz.mcaselector.filter.FilterType;
 import net.querz.mcaselector.filter.Operator;
 import net.querz.mcaselector.filter.TextFilter;
 import net.querz.mcaselector.io.mca.ChunkData;
+import net.querz.mcaselector.io.registry.BlockRegistry;
 import net.querz.mcaselector.text.TextHelper;
 import net.querz.mcaselector.version.VersionController;
 import java.util.ArrayList;
@@ -21,6 +22,9 @@ public class PaletteFilter extends TextFilter<List<String>> {
 		Comparator.NOT_EQUAL
 	};
 
+	// the block names of the value as block ids, so they don't have to be compared as strings for every chunk
+	private transient BlockRegistry.BlockSet blocks;
+
 	public PaletteFilter() {
 		this(Operator.AND, Comparator.CONTAINS, null);
 	}
@@ -53,7 +57,7 @@ public class PaletteFilter extends TextFilter<List<String>> {
 			return false;
 		}
 		return VersionController.getChunkFilter(data.region().getData().getIntOrDefault("DataVersion", 0))
-				.matchBlockNames(data.region().getData(), value);
+				.matchBlockNames(data.region().getData(), getBlocks(value));
 	}
 
 	@Override
@@ -67,7 +71,7 @@ public class PaletteFilter extends TextFilter<List<String>> {
 			return false;
 		}
 		return VersionController.getChunkFilter(data.region().getData().getIntOrDefault("DataVersion", 0))
-				.matchAnyBlockName(data.region().getData(), value);
+				.matchAnyBlockName(data.region().getData(), getBlocks(value));
 	}
 
 	public boolean equals(List<String> value, ChunkData data) {
@@ -75,13 +79,30 @@ public class PaletteFilter extends TextFilter<List<String>> {
 			return false;
 		}
 		return VersionController.getChunkFilter(data.region().getData().getIntOrDefault("DataVersion", 0))
-			.paletteEquals(data.region().getData(), value);
+			.paletteEquals(data.region().getData(), getBlocks(value));
 	}
 
 	public boolean notEquals(List<String> values, ChunkData data) {
 		return !equals(values, data);
 	}
 
+	private BlockRegistry.BlockSet getBlocks(List<String> value) {
+		BlockRegistry.BlockSet blocks = this.blocks;
+		if (blocks == null || value != this.value) {
+			blocks = BlockRegistry.BlockSet.of(value);
+			if (value == this.value) {
+				this.blocks = blocks;
+			}
+		}
+		return blocks;
+	}
+
+	@Override
+	public void setValue(List<String> value) {
+		super.setValue(value);
+		blocks = null;
+	}
+
 	@Override
 	public void setFilterValue(String raw) {
 		String[] blockNames = TextHelper.parseBlockNames(raw);
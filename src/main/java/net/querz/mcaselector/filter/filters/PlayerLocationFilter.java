@@ -5,8 +5,6 @@ import net.querz.mcaselector.filter.*;
 import net.querz.mcaselector.io.mca.ChunkData;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.property.DataProperty;
-import net.querz.mcaselector.version.ChunkFilter;
-import net.querz.mcaselector.version.VersionController;
 import net.querz.nbt.CompoundTag;
 import net.querz.nbt.IntTag;
 import net.querz.nbt.ListTag;
@@ -95,7 +93,7 @@ public class PlayerLocationFilter extends TextFilter<PlayerLocationFilter.Player
 
 	@Override
 	public boolean contains(PlayerLocationFilterDefinition value, ChunkData data) {
-		if (data.region() == null || data.region().getData() == null) {
+		if (data.region() == null) {
 			return false;
 		}
 
@@ -107,13 +105,7 @@ public class PlayerLocationFilter extends TextFilter<PlayerLocationFilter.Player
 			}
 		}
 
-		ChunkFilter chunkFilter = VersionController.getChunkFilter(data.region().getData().getIntOrDefault("DataVersion", 0));
-		IntTag xPos = chunkFilter.getXPos(data.region().getData());
-		IntTag zPos = chunkFilter.getZPos(data.region().getData());
-		if (xPos == null || zPos == null) {
-			return false;
-		}
-		return playerChunks.contains(new Point2i(xPos.asInt(), zPos.asInt()).asLong());
+		return playerChunks.contains(data.region().getAbsoluteLocation().asLong());
 	}
 
 	@Override
@@ -126,6 +118,11 @@ public class PlayerLocationFilter extends TextFilter<PlayerLocationFilter.Player
 		throw new UnsupportedOperationException("\"intersects\" not allowed in player filter");
 	}
 
+	@Override
+	public DataTier getDataTier() {
+		return DataTier.COORDINATES;
+	}
+
 	@Override
 	public boolean matchesRegion(Point2i region) {
 		if (!loaded.get()) {
@@ -1,7 +1,7 @@
 package net.querz.mcaselector.filter.filters;
 
 import net.querz.mcaselector.filter.*;
-import net.querz.mcaselector.io.GroovyScriptEngine;
+import net.querz.mcaselector.io.CompiledGroovyScript;
 import net.querz.mcaselector.io.mca.ChunkData;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -11,7 +11,8 @@ public class ScriptFilter extends TextFilter<String> {
 
 	private static final Logger LOGGER = LogManager.getLogger(ScriptFilter.class);
 
-	private final GroovyScriptEngine engine = new GroovyScriptEngine();
+	// shared with clones, the script has an instance for each thread
+	private transient CompiledGroovyScript script;
 
 	private static final Comparator[] comparators = {
 			Comparator.EQUAL,
@@ -25,6 +26,11 @@ public class ScriptFilter extends TextFilter<String> {
 		super(FilterType.SCRIPT, operator, comparator, value);
 	}
 
+	private ScriptFilter(Operator operator, Comparator comparator, String value, CompiledGroovyScript script) {
+		this(operator, comparator, value);
+		this.script = script;
+	}
+
 	@Override
 	public Comparator[] getComparators() {
 		return comparators;
@@ -33,11 +39,14 @@ public class ScriptFilter extends TextFilter<String> {
 	@Override
 	public void setFilterValue(String raw) {
 		try {
-			engine.eval(raw);
+			// the script is only compiled when the filter is used
+			CompiledGroovyScript.validate(raw);
+			script = new CompiledGroovyScript(raw, true);
 			setValue(raw);
 			setRawValue(raw);
 			setValid(true);
 		} catch (ScriptException e) {
+			script = null;
 			setValue(null);
 			setValid(false);
 		}
@@ -45,7 +54,7 @@ public class ScriptFilter extends TextFilter<String> {
 
 	@Override
 	public Filter<String> clone() {
-		return new ScriptFilter(getOperator(), getComparator(), value);
+		return new ScriptFilter(getOperator(), getComparator(), value, script);
 	}
 
 	@Override
@@ -55,30 +64,45 @@ public class ScriptFilter extends TextFilter<String> {
 
 	@Override
 	public boolean matches(ChunkData data) {
+		if (script == null) {
+			return false;
+		}
 		try {
-			return engine.test("filter", data);
-		} catch (ScriptException | NoSuchMethodException ex) {
+			return script.get().filter(data);
+		} catch (ScriptException ex) {
 			LOGGER.warn("failed to invoke filter function in custom script", ex);
 		}
 		return false;
 	}
 
 	public void before() {
+		if (script == null) {
+			return;
+		}
 		try {
-			engine.run("before");
-		} catch (ScriptException | NoSuchMethodException ex) {
+			script.get().before();
+		} catch (ScriptException ex) {
 			LOGGER.warn("failed to invoke before function in custom script", ex);
 		}
 	}
 
 	public void after() {
+		if (script == null) {
+			return;
+		}
 		try {
-			engine.run("after");
-		} catch (ScriptException | NoSuchMethodException ex) {
+			script.get().after();
+		} catch (ScriptException ex) {
 			LOGGER.warn("failed to invoke after function in custom script", ex);
 		}
 	}
 
+	@Override
+	public DataTier getDataTier() {
+		// scripts can access everything
+		return DataTier.POI;
+	}
+
 	@Override
 	public boolean contains(String value, ChunkData data) {
 		throw new UnsupportedOperationException("\"contains\" not allowed in ScriptFilter");
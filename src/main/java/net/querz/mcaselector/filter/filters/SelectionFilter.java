@@ -5,9 +5,6 @@ import net.querz.mcaselector.io.mca.ChunkData;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.property.DataProperty;
 import net.querz.mcaselector.selection.Selection;
-import net.querz.mcaselector.version.ChunkFilter;
-import net.querz.mcaselector.version.VersionController;
-import net.querz.nbt.IntTag;
 import java.io.File;
 
 public class SelectionFilter extends TextFilter<File> implements RegionMatcher {
@@ -51,7 +48,7 @@ public class SelectionFilter extends TextFilter<File> implements RegionMatcher {
 
 	@Override
 	public boolean contains(File value, ChunkData data) {
-		if (data.region() == null || data.region().getData() == null) {
+		if (data.region() == null) {
 			return false;
 		}
 
@@ -63,13 +60,8 @@ public class SelectionFilter extends TextFilter<File> implements RegionMatcher {
 			}
 		}
 
-		ChunkFilter chunkFilter = VersionController.getChunkFilter(data.region().getData().getIntOrDefault("DataVersion", 0));
-		IntTag xPos = chunkFilter.getXPos(data.region().getData());
-		IntTag zPos = chunkFilter.getZPos(data.region().getData());
-		if (xPos == null || zPos == null) {
-			return false;
-		}
-		return selection.isChunkSelected(xPos.asInt(), zPos.asInt());
+		Point2i location = data.region().getAbsoluteLocation();
+		return selection.isChunkSelected(location);
 	}
 
 	@Override
@@ -91,6 +83,11 @@ public class SelectionFilter extends TextFilter<File> implements RegionMatcher {
 		throw new UnsupportedOperationException("\"intersects\" not allowed in selection filter");
 	}
 
+	@Override
+	public DataTier getDataTier() {
+		return DataTier.COORDINATES;
+	}
+
 	@Override
 	public boolean matchesRegion(Point2i region) {
 		if (!loaded.get()) {
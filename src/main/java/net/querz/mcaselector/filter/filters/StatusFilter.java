@@ -5,10 +5,8 @@ import net.querz.mcaselector.filter.FilterType;
 import net.querz.mcaselector.filter.Operator;
 import net.querz.mcaselector.filter.TextFilter;
 import net.querz.mcaselector.io.mca.ChunkData;
+import net.querz.mcaselector.io.mca.ChunkField;
 import net.querz.mcaselector.io.registry.StatusRegistry;
-import net.querz.mcaselector.version.ChunkFilter;
-import net.querz.mcaselector.version.VersionController;
-import net.querz.nbt.StringTag;
 
 public class StatusFilter extends TextFilter<StatusRegistry.StatusIdentifier> {
 
@@ -46,12 +44,15 @@ public class StatusFilter extends TextFilter<StatusRegistry.StatusIdentifier> {
 	}
 
 	public boolean isEqual(StatusRegistry.StatusIdentifier value, ChunkData data) {
-		if (data.region() == null || data.region().getData() == null) {
+		if (data.region() == null || data.region().isEmpty()) {
 			return false;
 		}
-		ChunkFilter chunkFilter = VersionController.getChunkFilter(data.region().getData().getIntOrDefault("DataVersion", 0));
-		StringTag tag = chunkFilter.getStatus(data.region().getData());
-		return tag != null && value.equals(tag.getValue());
+		return data.region().getField(ChunkField.STATUS) instanceof String status && value.equals(status);
+	}
+
+	@Override
+	public ChunkField[] getRequiredFields() {
+		return new ChunkField[]{ChunkField.STATUS};
 	}
 
 	@Override
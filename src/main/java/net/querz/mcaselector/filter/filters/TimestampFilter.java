@@ -1,6 +1,7 @@
 package net.querz.mcaselector.filter.filters;
 
 import net.querz.mcaselector.filter.Comparator;
+import net.querz.mcaselector.filter.DataTier;
 import net.querz.mcaselector.filter.FilterType;
 import net.querz.mcaselector.filter.IntFilter;
 import net.querz.mcaselector.filter.Operator;
@@ -19,9 +20,17 @@ public class TimestampFilter extends IntFilter {
 
 	@Override
 	protected Integer getNumber(ChunkData data) {
+		if (data.region() == null) {
+			return null;
+		}
 		return data.region().getTimestamp();
 	}
 
+	@Override
+	public DataTier getDataTier() {
+		return DataTier.HEADER;
+	}
+
 	@Override
 	public void setFilterValue(String raw) {
 		super.setFilterValue(raw);
@@ -2,10 +2,8 @@ package net.querz.mcaselector.filter.filters;
 
 import net.querz.mcaselector.filter.*;
 import net.querz.mcaselector.io.mca.ChunkData;
+import net.querz.mcaselector.io.mca.ChunkField;
 import net.querz.mcaselector.point.Point2i;
-import net.querz.mcaselector.version.ChunkFilter;
-import net.querz.mcaselector.version.VersionController;
-import net.querz.nbt.IntTag;
 
 public class ZPosFilter extends IntFilter implements RegionMatcher {
 
@@ -19,12 +17,21 @@ public class ZPosFilter extends IntFilter implements RegionMatcher {
 
 	@Override
 	protected Integer getNumber(ChunkData data) {
-		if (data.region() == null || data.region().getData() == null) {
+		// the location of a chunk is given by its index in the region file
+		if (data.region() == null) {
 			return null;
 		}
-		ChunkFilter chunkFilter = VersionController.getChunkFilter(data.region().getData().getIntOrDefault("DataVersion", 0));
-		IntTag tag = chunkFilter.getZPos(data.region().getData());
-		return tag.asInt();
+		return data.region().getAbsoluteLocation().getZ();
+	}
+
+	@Override
+	public ChunkField[] getRequiredFields() {
+		return new ChunkField[0];
+	}
+
+	@Override
+	public DataTier getDataTier() {
+		return DataTier.COORDINATES;
 	}
 
 	@Override
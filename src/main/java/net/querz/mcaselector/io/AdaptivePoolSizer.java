@@ -0,0 +1,116 @@
+package net.querz.mcaselector.io;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+// resizes the process and save pools at runtime so both stay saturated.
+// process jobs wait for the disk while reading and use the cpu afterwards, so the process pool is sized
+// to cores * (1 + read time / cpu time). the save pool grows while save jobs queue up and shrinks when idle.
+// neither pool grows while the data of in-flight regions uses up most of the memory budget.
+class AdaptivePoolSizer extends TimerTask {
+
+	private static final Logger LOGGER = LogManager.getLogger(AdaptivePoolSizer.class);
+
+	private static final int CORES = Runtime.getRuntime().availableProcessors();
+	static final int MAX_PROCESS_THREADS = Math.max(CORES * 4, 1);
+	static final int MAX_WRITE_THREADS = Math.max(CORES * 2, 1);
+	private static final long INTERVAL = 1000L;
+
+	private final ThreadPoolExecutor processExecutor;
+	private final ThreadPoolExecutor saveExecutor;
+	private final int minProcessThreads;
+	private final int minWriteThreads;
+	private final Timer timer = new Timer("poolSizer", true);
+
+	private final LongAdder readNanos = new LongAdder();
+	private final LongAdder cpuNanos = new LongAdder();
+	private final LongAdder writeNanos = new LongAdder();
+
+	AdaptivePoolSizer(ThreadPoolExecutor processExecutor, ThreadPoolExecutor saveExecutor, int minProcessThreads, int minWriteThreads) {
+		this.processExecutor = processExecutor;
+		this.saveExecutor = saveExecutor;
+		this.minProcessThreads = Math.min(minProcessThreads, MAX_PROCESS_THREADS);
+		this.minWriteThreads = Math.min(minWriteThreads, MAX_WRITE_THREADS);
+		timer.schedule(this, INTERVAL, INTERVAL);
+	}
+
+	void recordProcess(long readNanos, long totalNanos) {
+		this.readNanos.add(readNanos);
+		cpuNanos.add(Math.max(totalNanos - readNanos, 0));
+	}
+
+	void recordSave(long nanos) {
+		writeNanos.add(nanos);
+	}
+
+	void stop() {
+		timer.cancel();
+	}
+
+	@Override
+	public void run() {
+		long read = readNanos.sumThenReset();
+		long cpu = cpuNanos.sumThenReset();
+		long write = writeNanos.sumThenReset();
+
+		if (JobHandler.getActiveJobs() == 0) {
+			return;
+		}
+
+		int processThreads = processExecutor.getMaximumPoolSize();
+		int writeThreads = saveExecutor.getMaximumPoolSize();
+		int processQueued = processExecutor.getQueue().size();
+		int saveQueued = saveExecutor.getQueue().size();
+		long inFlight = JobHandler.getInFlightBytes();
+		// more threads would only block on the budget
+		boolean overBudget = inFlight > JobHandler.getMemoryBudget() * 0.9;
+
+		int process = processThreads;
+		if (overBudget) {
+			process = processThreads - 1;
+		} else if (processQueued > 0 && saveQueued <= writeThreads && read + cpu > 0) {
+			// enough threads to keep all cores busy while some of them wait for the disk.
+			// only double the pool per interval so a single slow read doesn't spawn hundreds of threads.
+			int ideal = (int) Math.ceil(CORES * (1 + (double) read / Math.max(cpu, 1)));
+			process = Math.min(ideal, processThreads * 2);
+		} else if (processQueued == 0 && processExecutor.getActiveCount() < processThreads) {
+			process = processThreads - 1;
+		}
+		process = clamp(process, minProcessThreads, MAX_PROCESS_THREADS);
+
+		int save = writeThreads;
+		if (saveQueued > writeThreads && !overBudget) {
+			save = writeThreads + 1;
+		} else if (saveQueued == 0 && saveExecutor.getActiveCount() < writeThreads) {
+			save = writeThreads - 1;
+		}
+		save = clamp(save, minWriteThreads, MAX_WRITE_THREADS);
+
+		if (process != processThreads || save != writeThreads) {
+			LOGGER.debug("resizing pools: process {} -> {}, save {} -> {} (read: {}ms, cpu: {}ms, write: {}ms, queued: {}/{}, in flight: {} KiB)",
+				processThreads, process, writeThreads, save, read / 1_000_000, cpu / 1_000_000, write / 1_000_000,
+				processQueued, saveQueued, inFlight / 1024);
+			resize(processExecutor, process);
+			resize(saveExecutor, save);
+		}
+	}
+
+	private static int clamp(int value, int min, int max) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+	// the core size can't be larger than the maximum size at any time
+	private static void resize(ThreadPoolExecutor executor, int size) {
+		if (size > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(size);
+			executor.setCorePoolSize(size);
+		} else if (size < executor.getMaximumPoolSize()) {
+			executor.setCorePoolSize(size);
+			executor.setMaximumPoolSize(size);
+		}
+	}
+}
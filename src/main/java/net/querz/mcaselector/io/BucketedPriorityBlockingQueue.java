@@ -0,0 +1,282 @@
+package net.querz.mcaselector.io;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+// priority queue for jobs whose priority can change while they are queued.
+// elements are kept in one lock-free bucket per priority, so enqueueing and dequeueing only touch a single bucket
+// and equal priorities are dequeued in the order they were added. the priority of an element is only
+// computed again when it is dequeued or after reprioritize() has been called, which moves all elements whose
+// priority changed into their new bucket on the next dequeue.
+public class BucketedPriorityBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+	private final ToIntFunction<? super E> priority;
+
+	private final ConcurrentSkipListMap<Integer, ConcurrentLinkedQueue<Node<E>>> buckets = new ConcurrentSkipListMap<>();
+	private final AtomicInteger count = new AtomicInteger(0);
+	private final AtomicBoolean stale = new AtomicBoolean(false);
+
+	// only used to block when the queue is empty
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final AtomicInteger waiting = new AtomicInteger(0);
+
+	public BucketedPriorityBlockingQueue(ToIntFunction<? super E> priority) {
+		this.priority = priority;
+	}
+
+	// the priorities of the queued elements have changed
+	public void reprioritize() {
+		stale.set(true);
+	}
+
+	@Override
+	public boolean offer(E e) {
+		if (e == null) {
+			throw new NullPointerException();
+		}
+		enqueue(new Node<>(e));
+		count.incrementAndGet();
+		if (waiting.get() > 0) {
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				notEmpty.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+		return true;
+	}
+
+	private void enqueue(Node<E> node) {
+		int p = priority.applyAsInt(node.element);
+		while (true) {
+			ConcurrentLinkedQueue<Node<E>> bucket = buckets.computeIfAbsent(p, k -> new ConcurrentLinkedQueue<>());
+			bucket.offer(node);
+			// the bucket might have been removed because it was empty before the node was added
+			if (buckets.get(p) == bucket || !bucket.remove(node)) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public E poll() {
+		if (stale.compareAndSet(true, false)) {
+			rebucket();
+		}
+		for (Map.Entry<Integer, ConcurrentLinkedQueue<Node<E>>> entry : buckets.entrySet()) {
+			ConcurrentLinkedQueue<Node<E>> bucket = entry.getValue();
+			Node<E> node;
+			while ((node = bucket.poll()) != null) {
+				if (!node.claim()) {
+					continue;
+				}
+				int p = priority.applyAsInt(node.element);
+				if (p > entry.getKey()) {
+					// this element lost priority since it was added, move it back
+					enqueue(new Node<>(node.element));
+					continue;
+				}
+				count.decrementAndGet();
+				return node.element;
+			}
+			buckets.remove(entry.getKey(), bucket);
+			// an element could have been added between the last poll and the removal
+			if (!bucket.isEmpty()) {
+				for (Node<E> n : bucket) {
+					if (bucket.remove(n) && n.claim()) {
+						enqueue(new Node<>(n.element));
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	// moves all elements whose priority changed into their new bucket
+	private void rebucket() {
+		for (Map.Entry<Integer, ConcurrentLinkedQueue<Node<E>>> entry : buckets.entrySet()) {
+			int p = entry.getKey();
+			for (Node<E> node : entry.getValue()) {
+				if (priority.applyAsInt(node.element) != p && node.claim()) {
+					entry.getValue().remove(node);
+					enqueue(new Node<>(node.element));
+				}
+			}
+		}
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		E result;
+		while ((result = poll()) == null) {
+			final ReentrantLock lock = this.lock;
+			lock.lockInterruptibly();
+			waiting.incrementAndGet();
+			try {
+				while (count.get() == 0) {
+					notEmpty.await();
+				}
+			} finally {
+				waiting.decrementAndGet();
+				lock.unlock();
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		E result;
+		while ((result = poll()) == null && nanos > 0) {
+			final ReentrantLock lock = this.lock;
+			lock.lockInterruptibly();
+			waiting.incrementAndGet();
+			try {
+				while (count.get() == 0 && nanos > 0) {
+					nanos = notEmpty.awaitNanos(nanos);
+				}
+			} finally {
+				waiting.decrementAndGet();
+				lock.unlock();
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public E peek() {
+		List<E> first = peek(1);
+		return first.isEmpty() ? null : first.get(0);
+	}
+
+	// returns up to n elements in the order in which they would be dequeued, without removing them
+	public List<E> peek(int n) {
+		List<E> result = new ArrayList<>(Math.max(Math.min(n, count.get()), 0));
+		if (n <= 0) {
+			return result;
+		}
+		for (ConcurrentLinkedQueue<Node<E>> bucket : buckets.values()) {
+			for (Node<E> node : bucket) {
+				if (!node.isClaimed()) {
+					result.add(node.element);
+					if (result.size() == n) {
+						return result;
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super E> filter) {
+		boolean removed = false;
+		for (ConcurrentLinkedQueue<Node<E>> bucket : buckets.values()) {
+			for (Node<E> node : bucket) {
+				if (!node.isClaimed() && filter.test(node.element) && node.claim()) {
+					bucket.remove(node);
+					count.decrementAndGet();
+					removed = true;
+				}
+			}
+		}
+		return removed;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		for (ConcurrentLinkedQueue<Node<E>> bucket : buckets.values()) {
+			for (Node<E> node : bucket) {
+				if (node.element.equals(o) && node.claim()) {
+					bucket.remove(node);
+					count.decrementAndGet();
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		removeIf(e -> true);
+	}
+
+	@Override
+	public int size() {
+		return count.get();
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		// weakly consistent snapshot
+		return peek(Integer.MAX_VALUE).iterator();
+	}
+
+	@Override
+	public void put(E e) {
+		offer(e);
+	}
+
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) {
+		return offer(e);
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		int n = 0;
+		E e;
+		while (n < maxElements && (e = poll()) != null) {
+			c.add(e);
+			n++;
+		}
+		return n;
+	}
+
+	private static class Node<E> extends AtomicBoolean {
+
+		final E element;
+
+		Node(E element) {
+			this.element = element;
+		}
+
+		// only one thread can take, remove or move a node
+		boolean claim() {
+			return compareAndSet(false, true);
+		}
+
+		boolean isClaimed() {
+			return get();
+		}
+	}
+}
@@ -1,39 +1,83 @@
 package net.querz.mcaselector.io;
 
 import java.io.IOException;
-import java.io.InputStream;
 
-public class ByteArrayPointer extends InputStream {
+public class ByteArrayPointer extends DataPointer {
 
 	private final byte[] data;
-	private int pointer = 0;
+	private final int offset;
+	private final int limit;
+	private int pointer;
 
 	public ByteArrayPointer(byte[] data) {
+		this(data, 0, data.length);
+	}
+
+	private ByteArrayPointer(byte[] data, int offset, int length) {
 		this.data = data;
+		this.offset = offset;
+		this.limit = offset + length;
+		this.pointer = offset;
 	}
 
+	@Override
 	public void seek(long pointer) {
-		this.pointer = (int) pointer;
+		this.pointer = offset + (int) pointer;
 	}
 
+	@Override
 	public byte readByte() throws ArrayIndexOutOfBoundsException {
+		checkBounds(1);
 		return data[pointer++];
 	}
 
+	@Override
 	public int readInt() throws ArrayIndexOutOfBoundsException {
+		checkBounds(4);
 		int i = (data[pointer++] & 0xFF) << 24;
 		i |= (data[pointer++] & 0xFF) << 16;
 		i |= (data[pointer++] & 0xFF) << 8;
 		return i | data[pointer++] & 0xFF;
 	}
 
+	@Override
+	public DataPointer slice(int length) throws ArrayIndexOutOfBoundsException {
+		checkBounds(length);
+		return new ByteArrayPointer(data, pointer, length);
+	}
+
 	@Override
 	public int read() throws IOException {
-		try {
-			return data[pointer++] & 0xFF;
-		} catch (ArrayIndexOutOfBoundsException ex) {
-			// rethrow as IOException, because InputStream treats it as EOF when reading into byte[]
-			throw new IOException(ex);
+		if (pointer < offset || pointer >= limit) {
+			// throw IOException, because InputStream treats it as EOF when reading into byte[]
+			throw new IOException(new ArrayIndexOutOfBoundsException("index " + (pointer - offset) + " out of bounds for length " + (limit - offset)));
+		}
+		return data[pointer++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		int remaining = limit - pointer;
+		if (remaining <= 0) {
+			return -1;
+		}
+		int n = Math.min(len, remaining);
+		System.arraycopy(data, pointer, b, off, n);
+		pointer += n;
+		return n;
+	}
+
+	@Override
+	public int available() {
+		return Math.max(0, limit - pointer);
+	}
+
+	private void checkBounds(int length) {
+		if (pointer < offset || pointer + length > limit) {
+			throw new ArrayIndexOutOfBoundsException("index " + (pointer - offset) + " out of bounds for length " + (limit - offset));
 		}
 	}
 }
@@ -2,6 +2,8 @@ package net.querz.mcaselector.io;
 
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import net.querz.mcaselector.config.ConfigProvider;
+import net.querz.mcaselector.io.cache.TileCache;
+import net.querz.mcaselector.io.cache.TileCacheFormat;
 import net.querz.mcaselector.io.job.RegionImageGenerator;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.selection.ChunkSet;
@@ -25,6 +27,26 @@ public final class CacheHelper {
 
 	private CacheHelper() {}
 
+	public static TileCache getTileCache() {
+		return ConfigProvider.GLOBAL.getTileCacheFormat().getTileCache();
+	}
+
+	public static File getCacheFile(int zoomLevel, Point2i region) {
+		return FileHelper.createCacheFilePath(ConfigProvider.WORLD.getCacheDir(zoomLevel), region, getTileCache().getExtension());
+	}
+
+	// deletes the cached images of a region in all formats, so switching formats never leaves outdated images behind
+	public static void deleteCacheFiles(File cacheDir, Point2i region) {
+		for (TileCacheFormat format : TileCacheFormat.values()) {
+			File file = FileHelper.createCacheFilePath(cacheDir, region, format.getTileCache().getExtension());
+			if (file.exists()) {
+				if (!file.delete()) {
+					LOGGER.warn("could not delete file {}", file);
+				}
+			}
+		}
+	}
+
 	public static void forceGenerateCache(Integer zoomLevel, Progress progressChannel) {
 		File[] files = ConfigProvider.WORLD.getRegionDir().listFiles((d, n) -> FileHelper.MCA_FILE_PATTERN.matcher(n).matches());
 		if (files == null || files.length == 0) {
@@ -77,12 +99,7 @@ public final class CacheHelper {
 	public static void clearViewCache(TileMap tileMap) {
 		for (Point2i region : tileMap.getVisibleRegions()) {
 			for (File cacheDir : ConfigProvider.WORLD.getCacheDirs()) {
-				File file = FileHelper.createPNGFilePath(cacheDir, region);
-				if (file.exists()) {
-					if (!file.delete()) {
-						LOGGER.warn("could not delete file {}", file);
-					}
-				}
+				deleteCacheFiles(cacheDir, region);
 				tileMap.clearTile(region.asLong());
 				tileMap.getOverlayPool().discardData(region);
 			}
@@ -97,12 +114,7 @@ public final class CacheHelper {
 		for (Long2ObjectMap.Entry<ChunkSet> entry : selection) {
 			Point2i region = new Point2i(entry.getLongKey());
 			for (File cacheDir : ConfigProvider.WORLD.getCacheDirs()) {
-				File file = FileHelper.createPNGFilePath(cacheDir, region);
-				if (file.exists()) {
-					if (!file.delete()) {
-						LOGGER.warn("could not delete file {}", file);
-					}
-				}
+				deleteCacheFiles(cacheDir, region);
 			}
 			tileMap.clearTile(entry.getLongKey());
 			tileMap.getOverlayPool().discardData(region);
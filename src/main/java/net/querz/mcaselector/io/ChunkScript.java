@@ -0,0 +1,20 @@
+package net.querz.mcaselector.io;
+
+import net.querz.mcaselector.io.mca.ChunkData;
+import javax.script.ScriptException;
+
+// the functions a groovy script can define to filter or change chunks.
+// before() and after() are optional, calling filter() or apply() when the script doesn't define them fails.
+public interface ChunkScript {
+
+	void before() throws ScriptException;
+
+	boolean filter(ChunkData data) throws ScriptException;
+
+	void apply(ChunkData data) throws ScriptException;
+
+	void after() throws ScriptException;
+
+	// sets a variable in the binding of this script
+	void setVariable(String name, Object value);
+}
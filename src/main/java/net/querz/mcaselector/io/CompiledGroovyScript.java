@@ -0,0 +1,239 @@
+package net.querz.mcaselector.io;
+
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.Script;
+import groovy.transform.CompileStatic;
+import net.querz.mcaselector.io.mca.ChunkData;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
+import javax.script.ScriptException;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+// a groovy script that is compiled to a class once and instantiated for each thread that uses it,
+// so process threads don't have to share a script engine. the functions of the script are looked up once
+// and called through method handles. scripts are compiled with static type checking if they allow it,
+// otherwise they are compiled dynamically.
+// the script is compiled when it is used for the first time, so scripts that are only edited don't create any classes.
+// the body of the script is only run once when it is compiled, like ScriptEngine.eval() does.
+// if the binding is shared, variables that are assigned in the body or in before() are visible to all threads.
+public class CompiledGroovyScript {
+
+	private static final Logger LOGGER = LogManager.getLogger(CompiledGroovyScript.class);
+
+	private static final MethodType NO_ARGS = MethodType.methodType(Object.class, Script.class);
+	private static final MethodType ONE_ARG = MethodType.methodType(Object.class, Script.class, Object.class);
+
+	private final String source;
+	private final boolean shareBinding;
+
+	// set once the script has been compiled
+	private volatile boolean compiled;
+	private ScriptException failure;
+	private Class<? extends Script> scriptClass;
+	private boolean compiledStatic;
+	private Binding sharedBinding;
+
+	private MethodHandle before;
+	private MethodHandle filter;
+	private MethodHandle apply;
+	private MethodHandle after;
+
+	private final ThreadLocal<Instance> instances = ThreadLocal.withInitial(this::newInstance);
+
+	public CompiledGroovyScript(String source, boolean shareBinding) {
+		this.source = source;
+		this.shareBinding = shareBinding;
+	}
+
+	// checks the syntax of a script and resolves its classes without generating any classes or running it
+	public static void validate(String source) throws ScriptException {
+		try (GroovyClassLoader loader = new GroovyClassLoader(CompiledGroovyScript.class.getClassLoader())) {
+			CompilationUnit unit = new CompilationUnit(new CompilerConfiguration(), null, loader);
+			unit.addSource("Script.groovy", source);
+			unit.compile(Phases.SEMANTIC_ANALYSIS);
+		} catch (CompilationFailedException ex) {
+			throw new ScriptException(ex.getMessage());
+		} catch (IOException ex) {
+			LOGGER.warn("failed to close class loader", ex);
+		}
+	}
+
+	// compiles the script if it hasn't been compiled yet. fails again with the same exception if compiling failed before.
+	public void compile() throws ScriptException {
+		if (!compiled) {
+			synchronized (this) {
+				if (!compiled) {
+					try {
+						doCompile();
+					} catch (ScriptException ex) {
+						failure = ex;
+					}
+					compiled = true;
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private void doCompile() throws ScriptException {
+		Class<? extends Script> scriptClass;
+		boolean compiledStatic = true;
+		try {
+			scriptClass = compileClass(source, true);
+		} catch (CompilationFailedException ex) {
+			try {
+				scriptClass = compileClass(source, false);
+				compiledStatic = false;
+			} catch (CompilationFailedException e) {
+				throw new ScriptException(e.getMessage());
+			}
+		}
+		this.scriptClass = scriptClass;
+		this.compiledStatic = compiledStatic;
+		LOGGER.debug("compiled script {}", compiledStatic ? "statically" : "dynamically");
+
+		sharedBinding = shareBinding ? new Binding() : null;
+
+		before = function("before");
+		filter = function("filter");
+		apply = function("apply");
+		after = function("after");
+
+		// run the body of the script once
+		try {
+			instances.get().script.run();
+		} catch (Exception ex) {
+			throw new ScriptException(ex);
+		}
+	}
+
+	public boolean isCompiledStatic() throws ScriptException {
+		compile();
+		return compiledStatic;
+	}
+
+	// the instance of this script for the current thread, compiles the script if necessary
+	public ChunkScript get() throws ScriptException {
+		compile();
+		return instances.get();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Class<? extends Script> compileClass(String source, boolean compileStatic) throws CompilationFailedException {
+		CompilerConfiguration config = new CompilerConfiguration();
+		if (compileStatic) {
+			config.addCompilationCustomizers(new ASTTransformationCustomizer(CompileStatic.class));
+		}
+		// parseClass() defines all classes of the script including its closures, so the loader isn't needed afterwards
+		Class<?> c;
+		try (GroovyClassLoader loader = new GroovyClassLoader(CompiledGroovyScript.class.getClassLoader(), config)) {
+			c = loader.parseClass(source);
+		} catch (IOException ex) {
+			throw new IllegalStateException("failed to close class loader", ex);
+		}
+		if (!Script.class.isAssignableFrom(c)) {
+			throw new IllegalArgumentException("source does not compile to a script");
+		}
+		return (Class<? extends Script>) c;
+	}
+
+	// finds a function of the script with no or one parameter and adapts it to Object (Script[, Object])
+	private MethodHandle function(String name) {
+		for (Method method : scriptClass.getDeclaredMethods()) {
+			if (!method.getName().equals(name) || !Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+				continue;
+			}
+			try {
+				MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+				return switch (method.getParameterCount()) {
+					// functions without parameters ignore the argument
+					case 0 -> MethodHandles.dropArguments(handle.asType(NO_ARGS), 1, Object.class);
+					case 1 -> handle.asType(ONE_ARG);
+					default -> null;
+				};
+			} catch (IllegalAccessException ex) {
+				LOGGER.warn("failed to access function {} of script", name, ex);
+			}
+		}
+		return null;
+	}
+
+	private Instance newInstance() {
+		try {
+			Script script = scriptClass.getDeclaredConstructor().newInstance();
+			script.setBinding(sharedBinding != null ? sharedBinding : new Binding());
+			return new Instance(script);
+		} catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException("failed to create instance of script", ex);
+		}
+	}
+
+	private class Instance implements ChunkScript {
+
+		private final Script script;
+
+		private Instance(Script script) {
+			this.script = script;
+		}
+
+		@Override
+		public void before() throws ScriptException {
+			if (before != null) {
+				invoke(before, null);
+			}
+		}
+
+		@Override
+		public boolean filter(ChunkData data) throws ScriptException {
+			if (filter == null) {
+				throw new ScriptException("script does not define a filter function");
+			}
+			return invoke(filter, data) instanceof Boolean b && b;
+		}
+
+		@Override
+		public void apply(ChunkData data) throws ScriptException {
+			if (apply == null) {
+				throw new ScriptException("script does not define an apply function");
+			}
+			invoke(apply, data);
+		}
+
+		@Override
+		public void after() throws ScriptException {
+			if (after != null) {
+				invoke(after, null);
+			}
+		}
+
+		@Override
+		public void setVariable(String name, Object value) {
+			script.getBinding().setVariable(name, value);
+		}
+
+		private Object invoke(MethodHandle function, Object arg) throws ScriptException {
+			try {
+				return (Object) function.invokeExact(script, arg);
+			} catch (Error ex) {
+				throw ex;
+			} catch (Exception ex) {
+				throw new ScriptException(ex);
+			} catch (Throwable ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+	}
+}
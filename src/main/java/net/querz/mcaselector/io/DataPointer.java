@@ -0,0 +1,18 @@
+package net.querz.mcaselector.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// random access view on the raw bytes of an mca file
+public abstract class DataPointer extends InputStream {
+
+	public abstract void seek(long pointer);
+
+	public abstract byte readByte() throws IOException, ArrayIndexOutOfBoundsException;
+
+	public abstract int readInt() throws IOException, ArrayIndexOutOfBoundsException;
+
+	// returns an independent pointer over the next length bytes, starting at the current position.
+	// the underlying data is shared, not copied.
+	public abstract DataPointer slice(int length) throws ArrayIndexOutOfBoundsException;
+}
@@ -183,12 +183,8 @@ public final class FileHelper {
 		return new File(ConfigProvider.WORLD.getRegionDir(), createMCCFileName(c));
 	}
 
-	public static File createPNGFilePath(File cacheDir, Point2i r) {
-		return new File(cacheDir, createPNGFileName(r));
-	}
-
-	public static File createPNGFilePath(File cacheDir, int zoomLevel, Point2i r) {
-		return new File(cacheDir, zoomLevel + "/" + createPNGFileName(r));
+	public static File createCacheFilePath(File cacheDir, Point2i r, String extension) {
+		return new File(cacheDir, createCacheFileName(r, extension));
 	}
 
 	public static String createMCAFileName(Point2i r) {
@@ -199,8 +195,8 @@ public final class FileHelper {
 		return String.format("c.%d.%d.mcc", c.getX(), c.getZ());
 	}
 
-	public static String createPNGFileName(Point2i r) {
-		return String.format("r.%d.%d.png", r.getX(), r.getZ());
+	public static String createCacheFileName(Point2i r, String extension) {
+		return String.format("r.%d.%d.%s", r.getX(), r.getZ(), extension);
 	}
 
 	public static Attributes getManifestAttributes() throws IOException {
@@ -9,6 +9,7 @@ import net.querz.mcaselector.property.DataProperty;
 import net.querz.mcaselector.validation.ShutdownHooks;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import java.io.File;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -28,6 +29,19 @@ public final class JobHandler {
 
 	private static final AtomicInteger runningTasks = new AtomicInteger(0);
 
+	// bytes of region data that have been read by jobs that are not done yet
+	private static final MemoryBudget inFlightBytes = new MemoryBudget(ConfigProvider.GLOBAL.getMemoryBudgetBytes());
+
+	private static final ThreadLocal<WrapperJob> currentJob = new ThreadLocal<>();
+
+	private static AdaptivePoolSizer poolSizer;
+
+	private static RegionPrefetcher prefetcher;
+
+	private static BucketedPriorityBlockingQueue<Runnable> processQueue;
+
+	private static BucketedPriorityBlockingQueue<Runnable> parseQueue;
+
 	private static boolean trimSaveData = true;
 
 	public static void setTrimSaveData(boolean trimSaveData) {
@@ -56,15 +70,27 @@ public final class JobHandler {
 		if (parseExecutor != null) {
 			parseExecutor.shutdownNow();
 		}
+		if (poolSizer != null) {
+			poolSizer.stop();
+			poolSizer = null;
+		}
+		if (prefetcher != null) {
+			prefetcher.stop();
+		}
 
+		inFlightBytes.setLimit(ConfigProvider.GLOBAL.getMemoryBudgetBytes());
+		LOGGER.debug("memory budget for in-flight region data: {} MiB", ConfigProvider.GLOBAL.getMemoryBudget());
+
+		processQueue = new BucketedPriorityBlockingQueue<>(JobHandler::getPriority);
 		processExecutor = new PausableThreadPoolExecutor(
 			ConfigProvider.GLOBAL.getProcessThreads(), ConfigProvider.GLOBAL.getProcessThreads(),
 			0L, TimeUnit.MILLISECONDS,
-			new DynamicPriorityBlockingQueue<>(),
+			processQueue,
 			new NamedThreadFactory("processPool"),
 			job -> {
+				prefetcher.wakeUp();
 				int i;
-				if ((i = runningTasks.incrementAndGet()) > ConfigProvider.GLOBAL.getProcessThreads() && !trimSaveData) {
+				if ((i = runningTasks.incrementAndGet()) > processThreads() && !trimSaveData) {
 					processExecutor.pause("pausing process");
 				}
 				LOGGER.debug("+ active jobs: {} ({} queued)", i, processExecutor.getQueue().size());
@@ -80,6 +106,10 @@ public final class JobHandler {
 
 		LOGGER.debug("created data processor ThreadPoolExecutor with {} threads", ConfigProvider.GLOBAL.getProcessThreads());
 
+		// read the files of as many jobs ahead as there are process threads
+		PausableThreadPoolExecutor executor = processExecutor;
+		prefetcher = new RegionPrefetcher(processQueue, inFlightBytes, executor::getMaximumPoolSize);
+
 		saveExecutor = new PausableThreadPoolExecutor(
 			ConfigProvider.GLOBAL.getWriteThreads(), ConfigProvider.GLOBAL.getWriteThreads(),
 			0L, TimeUnit.MILLISECONDS,
@@ -94,29 +124,51 @@ public final class JobHandler {
 
 		LOGGER.debug("created data save ThreadPoolExecutor with {} threads", ConfigProvider.GLOBAL.getWriteThreads());
 
+		parseQueue = new BucketedPriorityBlockingQueue<>(JobHandler::getPriority);
 		parseExecutor = new ThreadPoolExecutor(
 			1, 1,
 			0L, TimeUnit.MILLISECONDS,
-			new DynamicPriorityBlockingQueue<>(),
+			parseQueue,
 			new NamedThreadFactory("parsePool"));
 		LOGGER.debug("created data parser ThreadPoolExecutor with {} threads", 1);
+
+		if (ConfigProvider.GLOBAL.getAdaptiveThreads()) {
+			poolSizer = new AdaptivePoolSizer(processExecutor, saveExecutor, ConfigProvider.GLOBAL.getProcessThreads(), ConfigProvider.GLOBAL.getWriteThreads());
+			LOGGER.debug("adaptive pool sizing enabled, up to {} process and {} write threads", AdaptivePoolSizer.MAX_PROCESS_THREADS, AdaptivePoolSizer.MAX_WRITE_THREADS);
+		}
+	}
+
+	private static int getPriority(Runnable r) {
+		return ((WrapperJob) r).job.getPriority();
+	}
+
+	// called when the priorities of queued jobs have changed, e.g. because the visible tiles changed
+	public static void updatePriorities() {
+		processQueue.reprioritize();
+		parseQueue.reprioritize();
+	}
+
+	// the current size of the process pool, which can change at runtime with adaptive pool sizing
+	private static int processThreads() {
+		return processExecutor.getMaximumPoolSize();
 	}
 
 	public static void addJob(ProcessDataJob job) {
 		LOGGER.debug("adding job {} for {} to executor queue", job.getClass().getSimpleName(), job.getRegionDirectories().getLocation());
 		processExecutor.execute(new WrapperJob(job));
+		prefetcher.wakeUp();
 	}
 
 	public static void executeSaveData(SaveDataJob<?> job) {
-		if (runningTasks.get() <= ConfigProvider.GLOBAL.getProcessThreads() + 1) {
-			saveExecutor.execute(new WrapperJob(job));
+		if (runningTasks.get() <= processThreads() + 1) {
+			saveExecutor.execute(takeInFlightBytes(new WrapperJob(job)));
 		} else {
 			if (!trimSaveData) {
 				processExecutor.pause("waiting for save data");
-				saveExecutor.execute(new WrapperJob(job));
+				saveExecutor.execute(takeInFlightBytes(new WrapperJob(job)));
 			} else {
 				int i;
-				if ((i = runningTasks.decrementAndGet()) <= ConfigProvider.GLOBAL.getProcessThreads() + 1) {
+				if ((i = runningTasks.decrementAndGet()) <= processThreads() + 1) {
 					job.cancel();
 					processExecutor.resume("skipping save data");
 					LOGGER.debug("too many tasks: skipping save data");
@@ -127,6 +179,55 @@ public final class JobHandler {
 		}
 	}
 
+	// the region data read by the calling process job stays in memory until the save job is done
+	private static WrapperJob takeInFlightBytes(WrapperJob saveJob) {
+		WrapperJob current = currentJob.get();
+		if (current != null) {
+			saveJob.inFlightBytes = current.inFlightBytes;
+			current.inFlightBytes = 0;
+		}
+		return saveJob;
+	}
+
+	// called by jobs before reading region data from disk, blocks until the data fits into the memory budget.
+	// the reservation is released when the job is done or handed over to its save job, which releases it when it's done.
+	public static void reserveInFlightBytes(long bytes) {
+		WrapperJob current = currentJob.get();
+		if (current == null) {
+			return;
+		}
+		if (current.inFlightBytes > 0) {
+			// this job already holds data, waiting here could block all jobs that hold the rest of the budget
+			inFlightBytes.reserveNow(bytes);
+		} else {
+			try {
+				inFlightBytes.reserve(bytes);
+			} catch (InterruptedException ex) {
+				inFlightBytes.reserveNow(bytes);
+				Thread.currentThread().interrupt();
+			}
+		}
+		current.inFlightBytes += bytes;
+	}
+
+	// returns the data of the file if it has been read ahead of time for the calling job, waiting for the read to finish
+	public static byte[] takePrefetched(File file) {
+		WrapperJob current = currentJob.get();
+		return current == null ? null : current.takePrefetched(file);
+	}
+
+	public static long getInFlightBytes() {
+		return inFlightBytes.getReserved();
+	}
+
+	public static long getMemoryBudget() {
+		return inFlightBytes.getLimit();
+	}
+
+	public static boolean hasQueuedProcessJobs() {
+		return !processExecutor.getQueue().isEmpty();
+	}
+
 	public static void executeParseData(ParseDataJob job) {
 		parseExecutor.execute(new WrapperJob(job));
 	}
@@ -217,6 +318,16 @@ public final class JobHandler {
 		Job job;
 		long jobID;
 		boolean done = false;
+		long inFlightBytes;
+
+		// files of the job that have been read ahead of time
+		private RegionPrefetcher prefetcher;
+		private File[] prefetchFiles;
+		// reserved bytes of each prefetched file that haven't been handed out yet
+		private long[] prefetchSizes;
+		private CompletableFuture<byte[][]> prefetch;
+		private long prefetchBytes;
+		private boolean started;
 		final static Object lock = new Object();
 
 		WrapperJob(Job job) {
@@ -227,19 +338,26 @@ public final class JobHandler {
 
 		@Override
 		public void run() {
+			claim(true);
+			currentJob.set(this);
+			long start = System.nanoTime();
 			try {
 				job.run();
 			} finally {
+				currentJob.remove();
+				record(System.nanoTime() - start);
 				synchronized (lock) {
 					if (!done) {
 						allTasks.decrementAndGet();
 					}
 					done = true;
 				}
+				releaseInFlightBytes();
 			}
 		}
 
 		public void cancel() {
+			claim(false);
 			try {
 				job.cancel();
 			} finally {
@@ -249,6 +367,88 @@ public final class JobHandler {
 					}
 					done = true;
 				}
+				releaseInFlightBytes();
+			}
+		}
+
+		synchronized boolean startPrefetch(RegionPrefetcher prefetcher, File[] files, long[] sizes, CompletableFuture<byte[][]> data, long bytes) {
+			if (started || prefetch != null) {
+				return false;
+			}
+			this.prefetcher = prefetcher;
+			prefetchFiles = files;
+			prefetchSizes = sizes;
+			prefetch = data;
+			prefetchBytes = bytes;
+			return true;
+		}
+
+		synchronized boolean hasPrefetch() {
+			return prefetch != null;
+		}
+
+		// stops the prefetcher from picking up this job and takes over the reservation of prefetched data
+		private synchronized void claim(boolean run) {
+			if (started) {
+				return;
+			}
+			started = true;
+			if (prefetch != null) {
+				prefetcher.consumed(prefetchBytes, run);
+				if (run) {
+					inFlightBytes += prefetchBytes;
+				}
+			}
+		}
+
+		private byte[] takePrefetched(File file) {
+			if (prefetch == null || file == null) {
+				return null;
+			}
+			byte[][] data;
+			try {
+				data = prefetch.join();
+			} catch (CompletionException | CancellationException ex) {
+				data = null;
+			}
+			for (int i = 0; i < prefetchFiles.length; i++) {
+				if (!file.equals(prefetchFiles[i])) {
+					continue;
+				}
+				byte[] d = data == null ? null : data[i];
+				if (d != null) {
+					// only hand out the data once, its reservation is kept until the job is done
+					data[i] = null;
+					prefetchSizes[i] = 0;
+					return d;
+				}
+				// reading ahead failed, the job reads the file itself and reserves memory for it again
+				if (prefetchSizes[i] > 0) {
+					JobHandler.inFlightBytes.release(prefetchSizes[i]);
+					inFlightBytes -= prefetchSizes[i];
+					prefetchSizes[i] = 0;
+				}
+				return null;
+			}
+			return null;
+		}
+
+		private void record(long nanos) {
+			AdaptivePoolSizer sizer = poolSizer;
+			if (sizer == null) {
+				return;
+			}
+			if (job instanceof SaveDataJob) {
+				sizer.recordSave(nanos);
+			} else if (job instanceof ProcessDataJob p && !(job instanceof ParseDataJob)) {
+				sizer.recordProcess(p.getReadNanos(), nanos);
+			}
+		}
+
+		private void releaseInFlightBytes() {
+			if (inFlightBytes != 0) {
+				JobHandler.inFlightBytes.release(inFlightBytes);
+				inFlightBytes = 0;
 			}
 		}
 
@@ -0,0 +1,158 @@
+package net.querz.mcaselector.io;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+// read-only, memory mapped counterpart to ByteArrayPointer.
+// only the pages of the file that are actually accessed are read from disk,
+// and the data never passes through the java heap.
+// the mapping is only released when it is garbage collected, and until then some platforms
+// refuse to replace or delete the file. that's why mapping is only enabled for short-lived cli runs.
+public class MappedFilePointer extends DataPointer {
+
+	private static final Logger LOGGER = LogManager.getLogger(MappedFilePointer.class);
+
+	private static volatile boolean enabled = false;
+
+	private final ByteBuffer data;
+
+	private MappedFilePointer(ByteBuffer data) {
+		this.data = data;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		MappedFilePointer.enabled = enabled;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	// maps the file if mapping is enabled, otherwise reads it completely.
+	// returns null if the file does not exist, is shorter than minLength or can't be read.
+	public static DataPointer open(File file, long minLength) {
+		if (enabled) {
+			return map(file, minLength);
+		}
+		if (file == null || !file.exists() || file.length() == 0 || file.length() < minLength) {
+			return null;
+		}
+		try {
+			return new ByteArrayPointer(Files.readAllBytes(file.toPath()));
+		} catch (IOException ex) {
+			LOGGER.warn("failed to read {}", file, ex);
+			return null;
+		}
+	}
+
+	// returns null if the file does not exist, is shorter than minLength or can't be mapped
+	public static MappedFilePointer map(File file, long minLength) {
+		if (file == null || !file.exists()) {
+			return null;
+		}
+		long length = file.length();
+		if (length == 0 || length < minLength) {
+			return null;
+		}
+		if (length > Integer.MAX_VALUE) {
+			LOGGER.warn("failed to map {}: file is too large ({} bytes)", file, length);
+			return null;
+		}
+		// the mapping stays valid after the channel is closed
+		try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return new MappedFilePointer(fc.map(FileChannel.MapMode.READ_ONLY, 0, length));
+		} catch (IOException ex) {
+			LOGGER.warn("failed to map {}", file, ex);
+			return null;
+		}
+	}
+
+	@Override
+	public void seek(long pointer) {
+		if (pointer < 0 || pointer > data.limit()) {
+			throw new ArrayIndexOutOfBoundsException("seek to " + pointer + " out of bounds for length " + data.limit());
+		}
+		data.position((int) pointer);
+	}
+
+	// accessing a page of a file that has been truncated after it was mapped throws an InternalError
+	@Override
+	public byte readByte() throws IOException, ArrayIndexOutOfBoundsException {
+		try {
+			return data.get();
+		} catch (BufferUnderflowException ex) {
+			throw new ArrayIndexOutOfBoundsException("read beyond end of mapped file");
+		} catch (InternalError ex) {
+			throw new IOException("mapped file has been truncated", ex);
+		}
+	}
+
+	@Override
+	public int readInt() throws IOException, ArrayIndexOutOfBoundsException {
+		try {
+			return data.getInt();
+		} catch (BufferUnderflowException ex) {
+			throw new ArrayIndexOutOfBoundsException("read beyond end of mapped file");
+		} catch (InternalError ex) {
+			throw new IOException("mapped file has been truncated", ex);
+		}
+	}
+
+	@Override
+	public DataPointer slice(int length) throws ArrayIndexOutOfBoundsException {
+		if (length < 0 || length > data.remaining()) {
+			throw new ArrayIndexOutOfBoundsException("slice of length " + length + " out of bounds for remaining " + data.remaining());
+		}
+		return new MappedFilePointer(data.slice(data.position(), length));
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!data.hasRemaining()) {
+			// rethrow as IOException, because InputStream treats it as EOF when reading into byte[]
+			throw new IOException("read beyond end of mapped file");
+		}
+		try {
+			return data.get() & 0xFF;
+		} catch (InternalError ex) {
+			throw new IOException("mapped file has been truncated", ex);
+		}
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		int remaining = data.remaining();
+		if (remaining == 0) {
+			return -1;
+		}
+		int n = Math.min(len, remaining);
+		try {
+			data.get(b, off, n);
+		} catch (InternalError ex) {
+			throw new IOException("mapped file has been truncated", ex);
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(long n) {
+		int skipped = (int) Math.max(0, Math.min(n, data.remaining()));
+		data.position(data.position() + skipped);
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return data.remaining();
+	}
+}
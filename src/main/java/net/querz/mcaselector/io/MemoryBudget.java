@@ -0,0 +1,149 @@
+package net.querz.mcaselector.io;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// limits the bytes of region data held by unfinished jobs.
+// a job that can't reserve its data blocks until enough has been released, while smaller jobs that still fit
+// are admitted in the meantime. a request that is larger than the whole budget is admitted once nothing else
+// is reserved, and a request that has been waiting for a while stops smaller ones from overtaking it.
+// speculative reservations of data that has been read for jobs that haven't started yet count against the budget,
+// but never keep a job from being admitted when nothing else is reserved, because those jobs might be waiting for a thread.
+class MemoryBudget {
+
+	private static final Logger LOGGER = LogManager.getLogger(MemoryBudget.class);
+
+	private static final long STARVATION_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = lock.newCondition();
+
+	private volatile long limit;
+	private volatile long reserved;
+	private long speculative;
+	// the size of the oldest request that has been waiting for longer than STARVATION_NANOS
+	private long starving;
+
+	MemoryBudget(long limit) {
+		this.limit = limit;
+	}
+
+	void setLimit(long limit) {
+		lock.lock();
+		try {
+			this.limit = limit;
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	long getLimit() {
+		return limit;
+	}
+
+	long getReserved() {
+		return reserved;
+	}
+
+	// blocks until the bytes fit into the budget
+	void reserve(long bytes) throws InterruptedException {
+		lock.lock();
+		try {
+			if (fits(bytes, false)) {
+				reserved += bytes;
+				return;
+			}
+			LOGGER.debug("waiting to reserve {} KiB, {} of {} KiB reserved", bytes / 1024, reserved / 1024, limit / 1024);
+			long start = System.nanoTime();
+			boolean isStarving = false;
+			try {
+				while (!fits(bytes, isStarving)) {
+					released.awaitNanos(STARVATION_NANOS);
+					if (!isStarving && starving == 0 && System.nanoTime() - start > STARVATION_NANOS) {
+						starving = bytes;
+						isStarving = true;
+					}
+				}
+			} finally {
+				if (isStarving) {
+					starving = 0;
+				}
+			}
+			reserved += bytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// reserves the bytes without waiting, used by jobs that already hold data and would otherwise block each other
+	void reserveNow(long bytes) {
+		lock.lock();
+		try {
+			reserved += bytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// reserves the bytes without waiting if they fit into the given share of the budget
+	boolean tryReserveSpeculative(long bytes, double share) {
+		lock.lock();
+		try {
+			if (speculative + bytes > limit * share || !fits(bytes, false)) {
+				return false;
+			}
+			reserved += bytes;
+			speculative += bytes;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// turns a speculative reservation into a normal one once its job has started
+	void claimSpeculative(long bytes) {
+		lock.lock();
+		try {
+			speculative -= bytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	void releaseSpeculative(long bytes) {
+		lock.lock();
+		try {
+			speculative -= bytes;
+			reserved -= bytes;
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	void release(long bytes) {
+		lock.lock();
+		try {
+			reserved -= bytes;
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean fits(long bytes, boolean isStarving) {
+		if (reserved - speculative == 0) {
+			return true;
+		}
+		long available = limit - reserved;
+		if (starving > 0 && !isStarving) {
+			// leave room for the starving request
+			available -= starving;
+		}
+		return bytes <= available;
+	}
+}
@@ -1,5 +1,6 @@
 package net.querz.mcaselector.io;
 
+import net.querz.mcaselector.io.mca.ChunkCodec;
 import java.util.concurrent.ThreadFactory;
 
 public class NamedThreadFactory implements ThreadFactory {
@@ -13,6 +14,13 @@ public class NamedThreadFactory implements ThreadFactory {
 
 	@Override
 	public Thread newThread(Runnable r) {
-		return new Thread(r, name + "-thread-" + count++);
+		return new Thread(() -> {
+			try {
+				r.run();
+			} finally {
+				// free native zlib memory held by this thread
+				ChunkCodec.release();
+			}
+		}, name + "-thread-" + count++);
 	}
 }
@@ -0,0 +1,138 @@
+package net.querz.mcaselector.io;
+
+import net.querz.mcaselector.io.job.ProcessDataJob;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+// reads the files of the next queued process jobs on virtual threads,
+// so the process threads don't have to wait for the disk when they pick up a job.
+class RegionPrefetcher {
+
+	private static final Logger LOGGER = LogManager.getLogger(RegionPrefetcher.class);
+
+	// prefetched data can use at most this share of the memory budget
+	private static final double BUDGET_SHARE = 0.5;
+
+	private final BucketedPriorityBlockingQueue<Runnable> queue;
+	private final MemoryBudget budget;
+	private final IntSupplier depth;
+	private final Semaphore signal = new Semaphore(0);
+	// jobs with prefetched data that haven't been picked up yet
+	private final AtomicInteger pending = new AtomicInteger(0);
+	private final Thread thread;
+
+	RegionPrefetcher(BucketedPriorityBlockingQueue<Runnable> queue, MemoryBudget budget, IntSupplier depth) {
+		this.queue = queue;
+		this.budget = budget;
+		this.depth = depth;
+		thread = Thread.ofVirtual().name("prefetcher").start(this::run);
+	}
+
+	// called whenever a job has been added to or taken from the queue
+	void wakeUp() {
+		signal.release();
+	}
+
+	void stop() {
+		thread.interrupt();
+	}
+
+	void consumed(long bytes, boolean started) {
+		pending.decrementAndGet();
+		if (started) {
+			budget.claimSpeculative(bytes);
+		} else {
+			budget.releaseSpeculative(bytes);
+		}
+		wakeUp();
+	}
+
+	private void run() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				// also check regularly in case data didn't fit into the budget before
+				signal.tryAcquire(100, TimeUnit.MILLISECONDS);
+				signal.drainPermits();
+				prefetch();
+			}
+		} catch (InterruptedException ex) {
+			LOGGER.debug("stopped prefetcher");
+		}
+	}
+
+	private void prefetch() {
+		int n = depth.getAsInt();
+		if (pending.get() >= n) {
+			return;
+		}
+
+		// the next n jobs in the order in which the process threads will pick them up
+		for (Runnable r : queue.peek(n)) {
+			if (pending.get() >= n) {
+				return;
+			}
+			JobHandler.WrapperJob wrapper = (JobHandler.WrapperJob) r;
+			if (!(wrapper.job instanceof ProcessDataJob job) || wrapper.hasPrefetch() || !job.canPrefetch()) {
+				continue;
+			}
+
+			RegionDirectories dirs = job.getRegionDirectories();
+			File[] files = {dirs.getRegion(), dirs.getPoi(), dirs.getEntities()};
+			long[] sizes = new long[files.length];
+			long bytes = 0;
+			for (int i = 0; i < files.length; i++) {
+				if (files[i] != null) {
+					sizes[i] = files[i].length();
+					bytes += sizes[i];
+				}
+			}
+			if (bytes == 0) {
+				continue;
+			}
+
+			if (!budget.tryReserveSpeculative(bytes, BUDGET_SHARE)) {
+				// don't let later jobs overtake this one
+				return;
+			}
+			CompletableFuture<byte[][]> data = new CompletableFuture<>();
+			pending.incrementAndGet();
+			if (!wrapper.startPrefetch(this, files, sizes, data, bytes)) {
+				pending.decrementAndGet();
+				budget.releaseSpeculative(bytes);
+				continue;
+			}
+			Thread.ofVirtual().name("prefetch-" + dirs.getLocationAsFileName()).start(() -> read(files, data));
+		}
+	}
+
+	private static void read(File[] files, CompletableFuture<byte[][]> data) {
+		try {
+			byte[][] result = new byte[files.length][];
+			for (int i = 0; i < files.length; i++) {
+				File file = files[i];
+				if (file == null || file.length() == 0) {
+					continue;
+				}
+				try {
+					result[i] = Files.readAllBytes(file.toPath());
+				} catch (IOException ex) {
+					// the job will try to read it again
+					LOGGER.debug("failed to prefetch {}: {}", file, ex.getMessage());
+				}
+			}
+			data.complete(result);
+		} catch (Throwable ex) {
+			// e.g. OutOfMemoryError, the job must not wait for the data forever
+			LOGGER.warn("failed to prefetch {}", files[0], ex);
+			data.completeExceptionally(ex);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package net.querz.mcaselector.io;
 
+import net.querz.mcaselector.filter.filters.GroupFilter;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.selection.Selection;
 import java.io.File;
@@ -54,12 +55,19 @@ public class WorldDirectories implements Serializable, Cloneable {
 	}
 
 	public RegionDirectories[] listRegions(Selection selection) {
+		return listRegions(selection, null);
+	}
+
+	// only lists regions that are selected and that contain chunks that can match the filter, judging by their location
+	public RegionDirectories[] listRegions(Selection selection, GroupFilter filter) {
 		Map<Point2i, RegionDirectories> regionDirectories = new HashMap<>();
+		// the same region is checked for region, entities and poi files
+		Map<Point2i, Boolean> listed = new HashMap<>();
 		File[] r = this.region.listFiles((d, n) -> FileHelper.MCA_FILE_PATTERN.matcher(n).matches());
 		if (r != null) {
 			for (File f : r) {
 				Point2i l = FileHelper.parseMCAFileName(f);
-				if (selection == null || selection.isAnyChunkInRegionSelected(l.asLong())) {
+				if (listed.computeIfAbsent(l, k -> isListed(k, selection, filter))) {
 					regionDirectories.put(l, new RegionDirectories(l, f, null, null));
 				}
 			}
@@ -70,7 +78,7 @@ public class WorldDirectories implements Serializable, Cloneable {
 			if (p != null) {
 				for (File f : p) {
 					Point2i l = FileHelper.parseMCAFileName(f);
-					if (selection == null || selection.isAnyChunkInRegionSelected(l.asLong())) {
+					if (listed.computeIfAbsent(l, k -> isListed(k, selection, filter))) {
 						if (regionDirectories.containsKey(l)) {
 							regionDirectories.get(l).setEntities(f);
 						} else {
@@ -86,7 +94,7 @@ public class WorldDirectories implements Serializable, Cloneable {
 			if (e != null) {
 				for (File f : e) {
 					Point2i l = FileHelper.parseMCAFileName(f);
-					if (selection == null || selection.isAnyChunkInRegionSelected(l.asLong())) {
+					if (listed.computeIfAbsent(l, k -> isListed(k, selection, filter))) {
 						if (regionDirectories.containsKey(l)) {
 							regionDirectories.get(l).setPoi(f);
 						} else {
@@ -100,6 +108,13 @@ public class WorldDirectories implements Serializable, Cloneable {
 		return regionDirectories.values().toArray(new RegionDirectories[0]);
 	}
 
+	private static boolean isListed(Point2i region, Selection selection, GroupFilter filter) {
+		if (selection != null && !selection.isAnyChunkInRegionSelected(region.asLong())) {
+			return false;
+		}
+		return filter == null || filter.appliesToRegion(region) && !filter.getChunkMask(region).isEmpty();
+	}
+
 	@Override
 	public WorldDirectories clone() {
 		try {
@@ -0,0 +1,81 @@
+package net.querz.mcaselector.io.cache;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.querz.mcaselector.tile.Tile;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+// stores the raw premultiplied BGRA pixels of an image compressed with LZ4.
+// compared to png this skips filtering, deflate and color conversion, so reading a tile is mostly limited by I/O.
+//
+// file layout:
+// 4 bytes magic number
+// 4 bytes image size (images are square)
+// LZ4 block of size * size * 4 bytes
+public class LZ4TileCache implements TileCache {
+
+	private static final int MAGIC = 0x4D434154; // "MCAT"
+	private static final int HEADER_SIZE = 8;
+
+	private static final LZ4Factory lz4 = LZ4Factory.fastestInstance();
+
+	@Override
+	public String getExtension() {
+		return "lz4";
+	}
+
+	@Override
+	public Image read(File file) throws IOException {
+		byte[] data = Files.readAllBytes(file.toPath());
+		ByteBuffer header = ByteBuffer.wrap(data);
+		if (data.length < HEADER_SIZE || header.getInt() != MAGIC) {
+			throw new IOException("invalid tile cache file " + file);
+		}
+		int size = header.getInt();
+		if (size <= 0 || size > Tile.SIZE) {
+			throw new IOException("invalid image size " + size + " in tile cache file " + file);
+		}
+
+		byte[] pixels = new byte[size * size * 4];
+		try {
+			int length = lz4.safeDecompressor().decompress(data, HEADER_SIZE, data.length - HEADER_SIZE, pixels, 0, pixels.length);
+			if (length != pixels.length) {
+				throw new IOException("expected " + pixels.length + " bytes of pixel data in tile cache file " + file + ", got " + length);
+			}
+		} catch (LZ4Exception ex) {
+			throw new IOException("failed to decompress tile cache file " + file, ex);
+		}
+
+		WritableImage image = new WritableImage(size, size);
+		image.getPixelWriter().setPixels(0, 0, size, size, PixelFormat.getByteBgraPreInstance(), pixels, 0, size * 4);
+		return image;
+	}
+
+	@Override
+	public void write(File file, Image image) throws IOException {
+		int size = (int) image.getWidth();
+		if (size != (int) image.getHeight()) {
+			throw new IOException("tile images must be square, got " + size + "x" + (int) image.getHeight());
+		}
+
+		byte[] pixels = new byte[size * size * 4];
+		image.getPixelReader().getPixels(0, 0, size, size, PixelFormat.getByteBgraPreInstance(), pixels, 0, size * 4);
+
+		LZ4Compressor compressor = lz4.fastCompressor();
+		byte[] data = new byte[HEADER_SIZE + compressor.maxCompressedLength(pixels.length)];
+		ByteBuffer.wrap(data).putInt(MAGIC).putInt(size);
+		int length = compressor.compress(pixels, 0, pixels.length, data, HEADER_SIZE);
+
+		try (OutputStream os = Files.newOutputStream(file.toPath())) {
+			os.write(data, 0, HEADER_SIZE + length);
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package net.querz.mcaselector.io.cache;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+public class PNGTileCache implements TileCache {
+
+	@Override
+	public String getExtension() {
+		return "png";
+	}
+
+	@Override
+	public Image read(File file) throws IOException {
+		Image image = new Image(file.toURI().toString(), false);
+		if (image.isError()) {
+			throw new IOException("failed to read image " + file, image.getException());
+		}
+		return image;
+	}
+
+	@Override
+	public void write(File file, Image image) throws IOException {
+		BufferedImage img = SwingFXUtils.fromFXImage(image, null);
+		ImageIO.write(img, "png", file);
+	}
+}
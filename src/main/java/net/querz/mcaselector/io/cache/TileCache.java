@@ -0,0 +1,16 @@
+package net.querz.mcaselector.io.cache;
+
+import javafx.scene.image.Image;
+import java.io.File;
+import java.io.IOException;
+
+// reads and writes the rendered images of regions in the disk cache
+public interface TileCache {
+
+	// file extension of cache files without the dot
+	String getExtension();
+
+	Image read(File file) throws IOException;
+
+	void write(File file, Image image) throws IOException;
+}
@@ -0,0 +1,17 @@
+package net.querz.mcaselector.io.cache;
+
+public enum TileCacheFormat {
+
+	PNG(new PNGTileCache()),
+	LZ4(new LZ4TileCache());
+
+	private final TileCache tileCache;
+
+	TileCacheFormat(TileCache tileCache) {
+		this.tileCache = tileCache;
+	}
+
+	public TileCache getTileCache() {
+		return tileCache;
+	}
+}
@@ -1,14 +1,14 @@
 package net.querz.mcaselector.io.db;
 
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.overlay.Overlay;
 import net.querz.mcaselector.validation.ShutdownHooks;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
@@ -18,22 +18,61 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+// writes are queued and committed in a single transaction by a background thread, either periodically
+// or as soon as enough writes are pending. the db runs in WAL mode and reads use their own connection,
+// so they don't wait for running transactions. reads check the queued writes first, so they always see the latest data.
 public final class CacheDBController {
 
 	private static final Logger LOGGER = LogManager.getLogger(CacheDBController.class);
 
+	private static final long FLUSH_INTERVAL = 1000;
+	private static final int MAX_PENDING_WRITES = 512;
+
 	private volatile Connection connection;
+	private Connection readConnection;
 	private String dbPath;
 	private ShutdownHooks.ShutdownJob closeShutdownHook;
 	private List<String> allTables;
 
+	// prepared statements per table, upserts use the write connection, selects the read connection
+	private final Map<String, PreparedStatement> upsertStatements = new HashMap<>();
+	private final Map<String, PreparedStatement> selectStatements = new HashMap<>();
+
+	// guards writing to the db with the write connection
+	private final Object writeLock = new Object();
+	// guards the read connection and its statements
+	private final Object readLock = new Object();
+	// guards pending and flushing writes
+	private final Object pendingLock = new Object();
+
+	// table --> region --> data
+	private Map<String, Long2ObjectMap<byte[]>> pendingData = new HashMap<>();
+	private Long2LongMap pendingFileTimes = new Long2LongOpenHashMap();
+	private int pendingWrites = 0;
+	// writes that are currently being committed
+	private Map<String, Long2ObjectMap<byte[]>> flushingData = null;
+	private Long2LongMap flushingFileTimes = null;
+
+	private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+	private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "cacheDBFlush-thread");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	private static final CacheDBController instance;
 
-	private CacheDBController() {}
+	private CacheDBController() {
+		flusher.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+	}
 
 	static {
 		try {
@@ -64,58 +103,118 @@ public final class CacheDBController {
 			}
 		}
 
+		Connection connection;
 		try {
-			connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+			connection = openConnection(dbPath);
 		} catch (SQLException ex) {
 			LOGGER.warn("failed to open cache db", ex);
 			LOGGER.debug("attempting to create new cache db");
 
 			if (new File(dbPath).delete()) {
 				LOGGER.debug("successfully deleted corrupted cache db");
-				connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+				connection = openConnection(dbPath);
 			} else {
 				LOGGER.warn("failed to delete corrupted cache db");
 				throw new SQLException("failed to delete corrupted cache db");
 			}
 		}
 
+		synchronized (readLock) {
+			readConnection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+		}
+		synchronized (writeLock) {
+			// writes that were queued after the old db was closed belong to the old db
+			discardPendingWrites();
+			this.connection = connection;
+		}
+
 		this.dbPath = dbPath;
 		addCloseShutdownHook();
 
 		initTables(overlays);
 	}
 
-	public void initTables(List<Overlay> overlays) throws SQLException {
-		Statement statement = connection.createStatement();
-		for (Overlay parser : overlays) {
-			statement.executeUpdate(String.format(
-					"CREATE TABLE IF NOT EXISTS %s%s (" +
-							"p BIGINT PRIMARY KEY, " +
-							"d BLOB);", parser.name(), parser.getMultiValuesID()));
+	private static Connection openConnection(String dbPath) throws SQLException {
+		Connection connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+		try (Statement statement = connection.createStatement()) {
+			// WAL is persistent in the db file, so the read connection uses it as well
+			statement.execute("PRAGMA journal_mode=WAL;");
+			// it's only a cache, losing the last transactions on power loss is fine
+			statement.execute("PRAGMA synchronous=NORMAL;");
+		} catch (SQLException ex) {
+			connection.close();
+			throw ex;
 		}
+		return connection;
+	}
 
-		statement.executeUpdate("CREATE TABLE IF NOT EXISTS file_times (" +
-			"p BIGINT PRIMARY KEY, " +
-			"t BIGINT);");
+	public void initTables(List<Overlay> overlays) throws SQLException {
+		synchronized (writeLock) {
+			Statement statement = connection.createStatement();
+			for (Overlay parser : overlays) {
+				statement.executeUpdate(String.format(
+						"CREATE TABLE IF NOT EXISTS %s (" +
+								"p BIGINT PRIMARY KEY, " +
+								"d BLOB);", tableName(parser)));
+			}
 
-		allTables = new ArrayList<>();
-		ResultSet result = statement.executeQuery("SELECT name FROM sqlite_master WHERE type='table';");
-		while (result.next()) {
-			allTables.add(result.getString(1));
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS file_times (" +
+				"p BIGINT PRIMARY KEY, " +
+				"t BIGINT);");
+
+			allTables = new ArrayList<>();
+			ResultSet result = statement.executeQuery("SELECT name FROM sqlite_master WHERE type='table';");
+			while (result.next()) {
+				allTables.add(result.getString(1));
+			}
 		}
 	}
 
 	public void close() throws SQLException {
-		if (connection != null && !connection.isClosed()) {
-			connection.close();
-			if (connection.isClosed()) {
-				LOGGER.debug("cache db connection closed");
-			} else {
-				LOGGER.debug("failed to close cache db connection");
+		try {
+			flush();
+		} finally {
+			try {
+				synchronized (writeLock) {
+					if (connection != null && !connection.isClosed()) {
+						closeStatements(upsertStatements);
+						try {
+							connection.close();
+							if (connection.isClosed()) {
+								LOGGER.debug("cache db connection closed");
+							} else {
+								LOGGER.debug("failed to close cache db connection");
+							}
+						} finally {
+							dbPath = null;
+							connection = null;
+						}
+					}
+				}
+			} finally {
+				synchronized (readLock) {
+					if (readConnection != null) {
+						closeStatements(selectStatements);
+						try {
+							readConnection.close();
+						} finally {
+							readConnection = null;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static void closeStatements(Map<String, PreparedStatement> statements) {
+		for (PreparedStatement ps : statements.values()) {
+			try {
+				ps.close();
+			} catch (SQLException ex) {
+				LOGGER.debug("failed to close prepared statement", ex);
 			}
-			dbPath = null;
-			connection = null;
 		}
+		statements.clear();
 	}
 
 	public boolean isInitialized() {
@@ -146,74 +245,203 @@ public final class CacheDBController {
 	}
 
 	public long getFileTime(Point2i region) throws SQLException {
+		synchronized (pendingLock) {
+			if (pendingFileTimes.containsKey(region.asLong())) {
+				return pendingFileTimes.get(region.asLong());
+			}
+			if (flushingFileTimes != null && flushingFileTimes.containsKey(region.asLong())) {
+				return flushingFileTimes.get(region.asLong());
+			}
+		}
 		while (connection == null) {
 			Thread.onSpinWait();
 		}
-		Statement statement = connection.createStatement();
-		ResultSet result = statement.executeQuery(String.format("SELECT t FROM file_times WHERE p=%s;", region.asLong()));
-		if (!result.next()) {
-			return -1;
+		synchronized (readLock) {
+			PreparedStatement ps = selectStatement("file_times", "t");
+			ps.setLong(1, region.asLong());
+			try (ResultSet result = ps.executeQuery()) {
+				if (!result.next()) {
+					return -1;
+				}
+				return result.getLong(1);
+			}
 		}
-		return result.getLong(1);
 	}
 
-	public void setFileTime(Point2i region, long time) throws SQLException {
-		while (connection == null) {
-			Thread.onSpinWait();
+	public void setFileTime(Point2i region, long time) {
+		synchronized (pendingLock) {
+			pendingFileTimes.put(region.asLong(), time);
+			pendingWrites++;
 		}
-		PreparedStatement ps = connection.prepareStatement(
-			"INSERT INTO file_times (p, t) " +
-				"VALUES (?, ?) " +
-				"ON CONFLICT(p) DO UPDATE " +
-				"SET t=?;");
-		ps.setLong(1, region.asLong());
-		ps.setLong(2, time);
-		ps.setLong(3, time);
-		ps.addBatch();
-		ps.executeBatch();
+		requestFlushIfFull();
 	}
 
 	public int[] getData(Overlay parser, Point2i region) throws IOException, SQLException {
-		Statement statement = connection.createStatement();
-		ResultSet result = statement.executeQuery(String.format(
-				"SELECT d FROM %s%s WHERE p=%s;", parser.name(), parser.getMultiValuesID(), region.asLong()));
-		if (!result.next()) {
-			return null;
+		String table = tableName(parser);
+		byte[] blob = null;
+		synchronized (pendingLock) {
+			Long2ObjectMap<byte[]> pending = pendingData.get(table);
+			if (pending != null) {
+				blob = pending.get(region.asLong());
+			}
+			if (blob == null && flushingData != null && (pending = flushingData.get(table)) != null) {
+				blob = pending.get(region.asLong());
+			}
 		}
-		int[] data = new int[1024];
-		try (DataInputStream dis = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(result.getBytes(1))))) {
-			for (int i = 0; i < 1024; i++) {
-				data[i] = dis.readInt();
+		if (blob == null) {
+			synchronized (readLock) {
+				PreparedStatement ps = selectStatement(table, "d");
+				ps.setLong(1, region.asLong());
+				try (ResultSet result = ps.executeQuery()) {
+					if (!result.next()) {
+						return null;
+					}
+					blob = result.getBytes(1);
+				}
 			}
 		}
+		int[] data = OverlayDataCodec.decode(blob);
+		if (OverlayDataCodec.isLegacy(blob)) {
+			// migrate data of older versions to the current encoding
+			setData(parser, region, data);
+		}
 		return data;
 	}
 
-	public void setData(Overlay parser, Point2i region, int[] data) throws IOException, SQLException {
-		PreparedStatement ps = connection.prepareStatement(String.format(
-				"INSERT INTO %s%s (p, d) " +
-						"VALUES (?, ?) " +
-						"ON CONFLICT(p) DO UPDATE " +
-						"SET d=?;", parser.name(), parser.getMultiValuesID()));
-		ps.setLong(1, region.asLong());
-		ByteArrayOutputStream baos;
-		try (DataOutputStream dos = new DataOutputStream(new GZIPOutputStream(baos = new ByteArrayOutputStream()))) {
-			for (int i = 0; i < 1024; i++) {
-				dos.writeInt(data[i]);
+	public void setData(Overlay parser, Point2i region, int[] data) {
+		byte[] blob = OverlayDataCodec.encode(data);
+		synchronized (pendingLock) {
+			pendingData.computeIfAbsent(tableName(parser), k -> new Long2ObjectOpenHashMap<>()).put(region.asLong(), blob);
+			pendingWrites++;
+		}
+		requestFlushIfFull();
+	}
+
+	private void requestFlushIfFull() {
+		boolean full;
+		synchronized (pendingLock) {
+			full = pendingWrites >= MAX_PENDING_WRITES;
+		}
+		if (full && flushRequested.compareAndSet(false, true)) {
+			flusher.execute(() -> {
+				flushRequested.set(false);
+				flushQuietly();
+			});
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (Exception ex) {
+			LOGGER.warn("failed to write to cache db", ex);
+		}
+	}
+
+	// commits all pending writes in a single transaction
+	public void flush() throws SQLException {
+		synchronized (writeLock) {
+			if (connection == null) {
+				return;
+			}
+
+			synchronized (pendingLock) {
+				if (pendingWrites == 0) {
+					return;
+				}
+				flushingData = pendingData;
+				flushingFileTimes = pendingFileTimes;
+				pendingData = new HashMap<>();
+				pendingFileTimes = new Long2LongOpenHashMap();
+				pendingWrites = 0;
 			}
+
+			try {
+				connection.setAutoCommit(false);
+				try {
+					for (Map.Entry<String, Long2ObjectMap<byte[]>> table : flushingData.entrySet()) {
+						PreparedStatement ps = upsertStatement(table.getKey(), "d");
+						for (Long2ObjectMap.Entry<byte[]> entry : table.getValue().long2ObjectEntrySet()) {
+							ps.setLong(1, entry.getLongKey());
+							ps.setBytes(2, entry.getValue());
+							ps.addBatch();
+						}
+						ps.executeBatch();
+					}
+					if (!flushingFileTimes.isEmpty()) {
+						PreparedStatement ps = upsertStatement("file_times", "t");
+						for (Long2LongMap.Entry entry : flushingFileTimes.long2LongEntrySet()) {
+							ps.setLong(1, entry.getLongKey());
+							ps.setLong(2, entry.getLongValue());
+							ps.addBatch();
+						}
+						ps.executeBatch();
+					}
+					connection.commit();
+				} catch (SQLException ex) {
+					connection.rollback();
+					throw ex;
+				} finally {
+					connection.setAutoCommit(true);
+				}
+			} finally {
+				synchronized (pendingLock) {
+					flushingData = null;
+					flushingFileTimes = null;
+				}
+			}
+		}
+	}
+
+	// drops all writes that have not been committed yet
+	private void discardPendingWrites() {
+		synchronized (pendingLock) {
+			pendingData = new HashMap<>();
+			pendingFileTimes = new Long2LongOpenHashMap();
+			pendingWrites = 0;
 		}
-		byte[] gzipped = baos.toByteArray();
-		ps.setBytes(2, gzipped);
-		ps.setBytes(3, gzipped);
-		ps.addBatch();
-		ps.executeBatch();
+	}
+
+	private PreparedStatement upsertStatement(String table, String column) throws SQLException {
+		PreparedStatement ps = upsertStatements.get(table);
+		if (ps == null) {
+			ps = connection.prepareStatement(String.format(
+					"INSERT INTO %s (p, %s) " +
+							"VALUES (?, ?) " +
+							"ON CONFLICT(p) DO UPDATE " +
+							"SET %s=excluded.%s;", table, column, column, column));
+			upsertStatements.put(table, ps);
+		}
+		return ps;
+	}
+
+	private PreparedStatement selectStatement(String table, String column) throws SQLException {
+		PreparedStatement ps = selectStatements.get(table);
+		if (ps == null) {
+			ps = readConnection.prepareStatement(String.format("SELECT %s FROM %s WHERE p=?;", column, table));
+			selectStatements.put(table, ps);
+		}
+		return ps;
+	}
+
+	private static String tableName(Overlay parser) {
+		return parser.name() + parser.getMultiValuesID();
 	}
 
 	public void deleteData(Overlay parser, Point2i region) throws SQLException {
-		PreparedStatement ps = connection.prepareStatement(String.format(
-				"DELETE FROM %s%s WHERE p=?;", parser.name(), parser.getMultiValuesID()));
-		ps.setLong(1, region.asLong());
-		ps.execute();
+		String table = tableName(parser);
+		synchronized (writeLock) {
+			synchronized (pendingLock) {
+				Long2ObjectMap<byte[]> pending = pendingData.get(table);
+				if (pending != null) {
+					pending.remove(region.asLong());
+				}
+			}
+			PreparedStatement ps = connection.prepareStatement(String.format(
+					"DELETE FROM %s WHERE p=?;", table));
+			ps.setLong(1, region.asLong());
+			ps.execute();
+		}
 	}
 
 	public void deleteData(Point2i region) throws SQLException {
@@ -221,11 +449,19 @@ public final class CacheDBController {
 			LOGGER.warn("failed to delete region {} from cache because it hasn't been initialized yet", region);
 			return;
 		}
-		for (String table : allTables) {
-			PreparedStatement ps = connection.prepareStatement(String.format(
-					"DELETE FROM %s WHERE p=?;", table));
-			ps.setLong(1, region.asLong());
-			ps.execute();
+		synchronized (writeLock) {
+			synchronized (pendingLock) {
+				for (Long2ObjectMap<byte[]> pending : pendingData.values()) {
+					pending.remove(region.asLong());
+				}
+				pendingFileTimes.remove(region.asLong());
+			}
+			for (String table : allTables) {
+				PreparedStatement ps = connection.prepareStatement(String.format(
+						"DELETE FROM %s WHERE p=?;", table));
+				ps.setLong(1, region.asLong());
+				ps.execute();
+			}
 		}
 	}
 
@@ -234,12 +470,20 @@ public final class CacheDBController {
 			return;
 		}
 		File dbFile = new File(this.dbPath);
+		discardPendingWrites();
 		close();
 		if (dbFile.delete()) {
 			LOGGER.debug("deleted cache db {}", dbFile);
 		} else {
 			throw new IOException(String.format("failed to delete cache db %s", dbFile.getCanonicalPath()));
 		}
+		// WAL mode keeps additional files next to the db
+		for (String suffix : new String[]{"-wal", "-shm"}) {
+			File file = new File(dbFile.getPath() + suffix);
+			if (file.exists() && !file.delete()) {
+				LOGGER.warn("failed to delete {}", file);
+			}
+		}
 		switchTo(dbFile.getPath(), overlays);
 	}
 }
@@ -0,0 +1,194 @@
+package net.querz.mcaselector.io.db;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+// encodes the 1024 overlay values of a region for the cache db.
+// values of neighboring chunks are usually similar, so they are stored as zigzag varint deltas,
+// optionally compressed with LZ4 if that is smaller. regions with a single value only store that value,
+// and random values that don't profit from varints are stored as plain ints.
+//
+// the first byte is the format. blobs of older versions are gzipped big endian ints, starting with the gzip magic 0x1F.
+public final class OverlayDataCodec {
+
+	public static final int VALUES = 1024;
+
+	private static final byte FORMAT_CONSTANT = 1;
+	private static final byte FORMAT_DELTA = 2;
+	private static final byte FORMAT_DELTA_LZ4 = 3;
+	private static final byte FORMAT_RAW = 4;
+
+	private static final byte GZIP_MAGIC = 0x1F;
+
+	// only try LZ4 if the deltas are large enough to possibly profit from it
+	private static final int MIN_LZ4_LENGTH = 256;
+
+	private static final LZ4Factory lz4 = LZ4Factory.fastestInstance();
+
+	private OverlayDataCodec() {}
+
+	public static byte[] encode(int[] data) {
+		if (data.length != VALUES) {
+			throw new IllegalArgumentException("expected " + VALUES + " values, got " + data.length);
+		}
+
+		if (isConstant(data)) {
+			byte[] blob = new byte[6];
+			blob[0] = FORMAT_CONSTANT;
+			int length = writeVarInt(blob, 1, zigzag(data[0]));
+			return Arrays.copyOf(blob, length);
+		}
+
+		// 5 bytes are enough for any varint
+		byte[] deltas = new byte[VALUES * 5];
+		int length = 0;
+		int previous = 0;
+		for (int value : data) {
+			// overflows are fine, decoding overflows back
+			length = writeVarInt(deltas, length, zigzag(value - previous));
+			previous = value;
+		}
+
+		// random values take up more space as varints than as plain ints
+		if (length > VALUES * Integer.BYTES) {
+			ByteBuffer blob = ByteBuffer.allocate(1 + VALUES * Integer.BYTES);
+			blob.put(FORMAT_RAW);
+			blob.asIntBuffer().put(data);
+			return blob.array();
+		}
+
+		if (length >= MIN_LZ4_LENGTH) {
+			LZ4Compressor compressor = lz4.fastCompressor();
+			byte[] blob = new byte[6 + compressor.maxCompressedLength(length)];
+			blob[0] = FORMAT_DELTA_LZ4;
+			int offset = writeVarInt(blob, 1, length);
+			int compressedLength = compressor.compress(deltas, 0, length, blob, offset);
+			if (offset + compressedLength < length + 1) {
+				return Arrays.copyOf(blob, offset + compressedLength);
+			}
+		}
+
+		byte[] blob = new byte[length + 1];
+		blob[0] = FORMAT_DELTA;
+		System.arraycopy(deltas, 0, blob, 1, length);
+		return blob;
+	}
+
+	public static int[] decode(byte[] blob) throws IOException {
+		if (blob == null || blob.length == 0) {
+			throw new IOException("empty overlay data");
+		}
+		return switch (blob[0]) {
+			case FORMAT_CONSTANT -> {
+				int[] data = new int[VALUES];
+				Arrays.fill(data, unzigzag(readVarInt(blob, new int[]{1}, blob.length)));
+				yield data;
+			}
+			case FORMAT_DELTA -> decodeDeltas(blob, 1, blob.length);
+			case FORMAT_DELTA_LZ4 -> {
+				int[] offset = {1};
+				int length = readVarInt(blob, offset, blob.length);
+				if (length <= 0 || length > VALUES * 5) {
+					throw new IOException("invalid overlay data length " + length);
+				}
+				byte[] deltas = new byte[length];
+				try {
+					lz4.safeDecompressor().decompress(blob, offset[0], blob.length - offset[0], deltas, 0, length);
+				} catch (LZ4Exception ex) {
+					throw new IOException("failed to decompress overlay data", ex);
+				}
+				yield decodeDeltas(deltas, 0, length);
+			}
+			case FORMAT_RAW -> {
+				if (blob.length != 1 + VALUES * Integer.BYTES) {
+					throw new IOException("invalid overlay data length " + blob.length);
+				}
+				int[] data = new int[VALUES];
+				ByteBuffer.wrap(blob, 1, VALUES * Integer.BYTES).slice().asIntBuffer().get(data);
+				yield data;
+			}
+			case GZIP_MAGIC -> decodeLegacy(blob);
+			default -> throw new IOException("unknown overlay data format " + blob[0]);
+		};
+	}
+
+	// returns true if the blob was written by an older version and should be encoded again
+	public static boolean isLegacy(byte[] blob) {
+		return blob != null && blob.length > 0 && blob[0] == GZIP_MAGIC;
+	}
+
+	private static int[] decodeDeltas(byte[] src, int offset, int end) throws IOException {
+		int[] data = new int[VALUES];
+		int[] pos = {offset};
+		int previous = 0;
+		for (int i = 0; i < VALUES; i++) {
+			previous += unzigzag(readVarInt(src, pos, end));
+			data[i] = previous;
+		}
+		return data;
+	}
+
+	private static int[] decodeLegacy(byte[] blob) throws IOException {
+		byte[] raw;
+		try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(blob))) {
+			raw = is.readNBytes(VALUES * Integer.BYTES);
+		}
+		if (raw.length != VALUES * Integer.BYTES) {
+			throw new IOException("unexpected end of overlay data");
+		}
+		int[] data = new int[VALUES];
+		ByteBuffer.wrap(raw).asIntBuffer().get(data);
+		return data;
+	}
+
+	private static boolean isConstant(int[] data) {
+		int first = data[0];
+		for (int i = 1; i < data.length; i++) {
+			if (data[i] != first) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int zigzag(int i) {
+		return (i << 1) ^ (i >> 31);
+	}
+
+	private static int unzigzag(int i) {
+		return (i >>> 1) ^ -(i & 1);
+	}
+
+	// returns the offset after the varint
+	private static int writeVarInt(byte[] dst, int offset, int value) {
+		while ((value & ~0x7F) != 0) {
+			dst[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		dst[offset++] = (byte) value;
+		return offset;
+	}
+
+	// reads a varint at pos[0] and advances pos[0]
+	private static int readVarInt(byte[] src, int[] pos, int end) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			if (pos[0] >= end) {
+				throw new IOException("unexpected end of overlay data");
+			}
+			byte b = src[pos[0]++];
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("varint too long in overlay data");
+	}
+}
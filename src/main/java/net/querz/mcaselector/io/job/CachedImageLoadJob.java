@@ -1,6 +1,7 @@
 package net.querz.mcaselector.io.job;
 
 import javafx.scene.image.Image;
+import net.querz.mcaselector.io.CacheHelper;
 import net.querz.mcaselector.io.ImageHelper;
 import net.querz.mcaselector.io.JobHandler;
 import net.querz.mcaselector.io.RegionDirectories;
@@ -9,6 +10,7 @@ import net.querz.mcaselector.tile.Tile;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.File;
+import java.io.IOException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
@@ -69,11 +71,12 @@ public class CachedImageLoadJob extends ProcessDataJob {
 	}
 
 	private Image loadImageFromDiskCache(File cachedImgFile) {
-		Image cachedImg = new Image(cachedImgFile.toURI().toString(), false);
-
-		if (cachedImg.isError()) {
+		Image cachedImg;
+		try {
+			cachedImg = CacheHelper.getTileCache().read(cachedImgFile);
+		} catch (IOException ex) {
 			// don't set image to null, we might already have an image
-			LOGGER.warn("failed to load image from cache: {}", cachedImgFile.getAbsolutePath());
+			LOGGER.warn("failed to load image from cache: {}", cachedImgFile.getAbsolutePath(), ex);
 			return null;
 		}
 
@@ -1,13 +1,16 @@
 package net.querz.mcaselector.io.job;
 
 import net.querz.mcaselector.config.ConfigProvider;
+import net.querz.mcaselector.filter.DataTier;
 import net.querz.mcaselector.filter.filters.GroupFilter;
 import net.querz.mcaselector.io.JobHandler;
 import net.querz.mcaselector.io.RegionDirectories;
 import net.querz.mcaselector.io.WorldDirectories;
 import net.querz.mcaselector.io.mca.Region;
+import net.querz.mcaselector.io.mca.RegionMCAFile;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.progress.Progress;
+import net.querz.mcaselector.selection.ChunkSet;
 import net.querz.mcaselector.selection.Selection;
 import net.querz.mcaselector.text.Translation;
 import org.apache.logging.log4j.LogManager;
@@ -21,8 +24,13 @@ public final class ChunkFilterDeleter {
 	private ChunkFilterDeleter() {}
 
 	public static void deleteFilter(GroupFilter filter, Selection selection, Progress progressChannel, boolean headless) {
+		deleteFilter(filter, selection, progressChannel, headless, false);
+	}
+
+	// inPlace only clears the header entries of deleted chunks instead of defragmenting the files
+	public static void deleteFilter(GroupFilter filter, Selection selection, Progress progressChannel, boolean headless, boolean inPlace) {
 		WorldDirectories wd = ConfigProvider.WORLD.getWorldDirs();
-		RegionDirectories[] rd = wd.listRegions(selection);
+		RegionDirectories[] rd = wd.listRegions(selection, filter);
 		if (rd == null || rd.length == 0) {
 			if (headless) {
 				progressChannel.done("no files");
@@ -40,7 +48,7 @@ public final class ChunkFilterDeleter {
 		Consumer<Throwable> errorHandler = t -> progressChannel.incrementProgress("error");
 
 		for (RegionDirectories r : rd) {
-			MCADeleteFilterProcessJob job = new MCADeleteFilterProcessJob(r, filter, selection, progressChannel);
+			MCADeleteFilterProcessJob job = new MCADeleteFilterProcessJob(r, filter, selection, progressChannel, inPlace);
 			job.errorHandler = errorHandler;
 			JobHandler.addJob(job);
 		}
@@ -51,12 +59,24 @@ public final class ChunkFilterDeleter {
 		private final Progress progressChannel;
 		private final GroupFilter filter;
 		private final Selection selection;
+		private final boolean inPlace;
 
-		private MCADeleteFilterProcessJob(RegionDirectories dirs, GroupFilter filter, Selection selection, Progress progressChannel) {
+		private MCADeleteFilterProcessJob(RegionDirectories dirs, GroupFilter filter, Selection selection, Progress progressChannel, boolean inPlace) {
 			super(dirs, PRIORITY_LOW);
 			this.filter = filter;
 			this.selection = selection;
 			this.progressChannel = progressChannel;
+			this.inPlace = inPlace;
+		}
+
+		@Override
+		public boolean canPrefetch() {
+			// the headers are enough to delete chunks in place if the filter doesn't need any chunk data
+			if (inPlace && filter.getDataTier().compareTo(DataTier.HEADER) <= 0) {
+				return false;
+			}
+			Point2i location = getRegionDirectories().getLocation();
+			return filter.appliesToRegion(location) && (selection == null || selection.isAnyChunkInRegionSelected(location));
 		}
 
 		@Override
@@ -70,6 +90,52 @@ public final class ChunkFilterDeleter {
 				return true;
 			}
 
+			// skip the chunks that can't match because of their location
+			ChunkSet mask = filter.getChunkMask(location);
+			if (mask.isEmpty()) {
+				LOGGER.debug("filter does not apply to any chunk in region {}", getRegionDirectories().getLocation());
+				progressChannel.incrementProgress(getRegionDirectories().getLocationAsFileName());
+				return true;
+			}
+
+			// evaluate everything that can be decided from the headers first
+			ChunkSet matches = new ChunkSet();
+			ChunkSet candidates = new ChunkSet();
+			Region header = null;
+			try {
+				header = Region.loadRegionHeaders(getRegionDirectories(), loadRegionHeader(), loadPoiHeader(), loadEntitiesHeader());
+				header.getFilteredChunksFromHeaders(filter, selection, mask, matches, candidates);
+				// chunks without region data are never deleted, just like in Region.deleteChunks()
+				RegionMCAFile regionHeader = header.getRegion();
+				ChunkSet existing = new ChunkSet();
+				for (int i : matches) {
+					if (regionHeader != null && regionHeader.hasChunk(i)) {
+						existing.set(i);
+					}
+				}
+				matches = existing;
+			} catch (Exception ex) {
+				LOGGER.warn("failed to read headers of {}", getRegionDirectories().getLocationAsFileName(), ex);
+				header = null;
+				matches.clear();
+				candidates.or(mask);
+			}
+
+			if (candidates.isEmpty()) {
+				if (matches.isEmpty()) {
+					progressChannel.incrementProgress(getRegionDirectories().getLocationAsFileName());
+					LOGGER.debug("nothing to delete in {}, not saving", getRegionDirectories().getLocationAsFileName());
+					return true;
+				}
+				if (inPlace && header != null) {
+					// only the headers have to be changed
+					MCADeleteFilterSaveJob job = new MCADeleteFilterSaveJob(getRegionDirectories(), header, matches, progressChannel);
+					job.errorHandler = errorHandler;
+					JobHandler.executeSaveData(job);
+					return false;
+				}
+			}
+
 			byte[] regionData = loadRegion();
 			byte[] poiData = loadPoi();
 			byte[] entitiesData = loadEntities();
@@ -85,9 +151,12 @@ public final class ChunkFilterDeleter {
 				// parse raw data
 				Region region = Region.loadRegion(getRegionDirectories(), regionData, poiData, entitiesData);
 
-				if (region.deleteChunks(filter, selection)) {
+				ChunkSet deleted = region.deleteChunks(filter, selection, candidates);
+				region.deleteChunks(matches);
+				deleted.or(matches);
+				if (!deleted.isEmpty()) {
 					// only save file if we actually deleted something
-					MCADeleteFilterSaveJob job = new MCADeleteFilterSaveJob(getRegionDirectories(), region, progressChannel);
+					MCADeleteFilterSaveJob job = new MCADeleteFilterSaveJob(getRegionDirectories(), region, inPlace ? deleted : null, progressChannel);
 					job.errorHandler = errorHandler;
 					JobHandler.executeSaveData(job);
 					return false;
@@ -106,16 +175,23 @@ public final class ChunkFilterDeleter {
 	private static class MCADeleteFilterSaveJob extends SaveDataJob<Region> {
 
 		private final Progress progressChannel;
+		// the chunks to delete in place, or null to defragment
+		private final ChunkSet inPlace;
 
-		private MCADeleteFilterSaveJob(RegionDirectories dirs, Region region, Progress progressChannel) {
+		private MCADeleteFilterSaveJob(RegionDirectories dirs, Region region, ChunkSet inPlace, Progress progressChannel) {
 			super(dirs, region);
+			this.inPlace = inPlace;
 			this.progressChannel = progressChannel;
 		}
 
 		@Override
 		public void execute() {
 			try {
-				getData().deFragment();
+				if (inPlace != null) {
+					getData().deleteChunksInPlace(inPlace);
+				} else {
+					getData().deFragment();
+				}
 			} catch (Exception ex) {
 				LOGGER.warn("failed to delete filtered chunks from {}", getRegionDirectories().getLocationAsFileName(), ex);
 			}
@@ -9,6 +9,7 @@ import net.querz.mcaselector.io.mca.Region;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.progress.Progress;
 import net.querz.mcaselector.progress.Timer;
+import net.querz.mcaselector.selection.ChunkSet;
 import net.querz.mcaselector.selection.Selection;
 import net.querz.mcaselector.text.Translation;
 import org.apache.logging.log4j.LogManager;
@@ -24,7 +25,7 @@ public final class ChunkFilterExporter {
 
 	public static void exportFilter(GroupFilter filter, Selection selection, WorldDirectories destination, Progress progressChannel, boolean headless) {
 		WorldDirectories wd = ConfigProvider.WORLD.getWorldDirs();
-		RegionDirectories[] rd = wd.listRegions(selection);
+		RegionDirectories[] rd = wd.listRegions(selection, filter);
 		if (rd == null || rd.length == 0) {
 			if (headless) {
 				progressChannel.done("no files");
@@ -63,6 +64,12 @@ public final class ChunkFilterExporter {
 			this.progressChannel = progressChannel;
 		}
 
+		@Override
+		public boolean canPrefetch() {
+			Point2i location = getRegionDirectories().getLocation();
+			return filter.appliesToRegion(location) && (selection == null || selection.isAnyChunkInRegionSelected(location));
+		}
+
 		@Override
 		public boolean execute() {
 			Point2i location = getRegionDirectories().getLocation();
@@ -84,6 +91,32 @@ public final class ChunkFilterExporter {
 
 			RegionDirectories to = new RegionDirectories(getRegionDirectories().getLocation(), toRegion, toPoi, toEntities);
 
+			// skip the chunks that can't match because of their location
+			ChunkSet mask = filter.getChunkMask(location);
+			if (mask.isEmpty()) {
+				LOGGER.debug("filter does not apply to any chunk in region {}", getRegionDirectories().getLocation());
+				progressChannel.incrementProgress(getRegionDirectories().getLocationAsFileName());
+				return true;
+			}
+
+			// evaluate everything that can be decided from the headers first
+			ChunkSet matches = new ChunkSet();
+			ChunkSet candidates = new ChunkSet();
+			try {
+				Region header = Region.loadRegionHeaders(getRegionDirectories(), loadRegionHeader(), loadPoiHeader(), loadEntitiesHeader());
+				header.getFilteredChunksFromHeaders(filter, selection, mask, matches, candidates);
+			} catch (Exception ex) {
+				LOGGER.warn("failed to read headers of {}", getRegionDirectories().getLocationAsFileName(), ex);
+				matches.clear();
+				candidates.or(mask);
+			}
+
+			if (matches.isEmpty() && candidates.isEmpty()) {
+				LOGGER.debug("nothing to export in {}", getRegionDirectories().getLocationAsFileName());
+				progressChannel.incrementProgress(getRegionDirectories().getLocationAsFileName());
+				return true;
+			}
+
 			byte[] regionData = loadRegion();
 			byte[] poiData = loadPoi();
 			byte[] entitiesData = loadEntities();
@@ -99,7 +132,7 @@ public final class ChunkFilterExporter {
 			try {
 				Region region = Region.loadRegion(getRegionDirectories(), regionData, poiData, entitiesData);
 
-				region.keepChunks(filter, selection);
+				region.keepChunks(filter, selection, matches, candidates);
 
 				MCAExportFilterSaveJob job = new MCAExportFilterSaveJob(getRegionDirectories(), region, to, progressChannel);
 				job.errorHandler = errorHandler;
@@ -332,8 +332,8 @@ public final class ChunkImporter {
 
 			Timer t = new Timer();
 			try {
-				// load target region
-				Region targetRegion = Region.loadRegion(getRegionDirectories(), destDataRegion, destDataPoi, destDataEntities);
+				// load target and source regions lazily, chunks that are only moved around are then saved without recompressing them
+				Region targetRegion = Region.loadRegionLazy(getRegionDirectories(), destDataRegion, destDataPoi, destDataEntities);
 
 				ChunkSet targetChunks = null;
 				if (targetSelection != null) {
@@ -342,7 +342,7 @@ public final class ChunkImporter {
 
 				for (Map.Entry<Point2i, byte[]> sourceData : sourceDataMappingRegion.entrySet()) {
 					RegionMCAFile source = new RegionMCAFile(new File(sourceDirs.getRegion(), FileHelper.createMCAFileName(sourceData.getKey())));
-					source.load(new ByteArrayPointer(sourceData.getValue()));
+					source.loadLazy(new ByteArrayPointer(sourceData.getValue()));
 
 					LOGGER.debug("merging region chunks from {} into {}", sourceData.getKey(), target);
 
@@ -360,7 +360,7 @@ public final class ChunkImporter {
 
 				for (Map.Entry<Point2i, byte[]> sourceData : sourceDataMappingPoi.entrySet()) {
 					PoiMCAFile source = new PoiMCAFile(new File(sourceDirs.getPoi(), FileHelper.createMCAFileName(sourceData.getKey())));
-					source.load(new ByteArrayPointer(sourceData.getValue()));
+					source.loadLazy(new ByteArrayPointer(sourceData.getValue()));
 
 					LOGGER.debug("merging poi chunks from {} into {}", sourceData.getKey(), target);
 
@@ -378,7 +378,7 @@ public final class ChunkImporter {
 
 				for (Map.Entry<Point2i, byte[]> sourceData : sourceDataMappingEntities.entrySet()) {
 					EntitiesMCAFile source = new EntitiesMCAFile(new File(sourceDirs.getEntities(), FileHelper.createMCAFileName(sourceData.getKey())));
-					source.load(new ByteArrayPointer(sourceData.getValue()));
+					source.loadLazy(new ByteArrayPointer(sourceData.getValue()));
 
 					LOGGER.debug("merging entities chunks from {} into {}", sourceData.getKey(), target);
 
@@ -0,0 +1,164 @@
+package net.querz.mcaselector.io.job;
+
+import net.querz.mcaselector.io.FileHelper;
+import net.querz.mcaselector.io.WorldDirectories;
+import net.querz.mcaselector.io.mca.ChunkCodec;
+import net.querz.mcaselector.io.mca.CompressionType;
+import net.querz.mcaselector.io.mca.RegionChunk;
+import net.querz.mcaselector.io.mca.RegionMCAFile;
+import net.querz.mcaselector.progress.Progress;
+import net.querz.nbt.CompoundTag;
+import net.querz.nbt.io.NBTReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+// measures size and speed of all supported chunk compressions on a random sample of chunks of a world
+public final class CompressionBenchmark {
+
+	private static final Logger LOGGER = LogManager.getLogger(CompressionBenchmark.class);
+
+	private static final Codec[] codecs = {
+		new Codec("uncompressed", CompressionType.UNCOMPRESSED, Deflater.DEFAULT_COMPRESSION),
+		new Codec("gzip", CompressionType.GZIP, Deflater.DEFAULT_COMPRESSION),
+		new Codec("zlib-1", CompressionType.ZLIB, 1),
+		new Codec("zlib-6", CompressionType.ZLIB, 6),
+		new Codec("zlib-9", CompressionType.ZLIB, 9),
+		new Codec("lz4", CompressionType.LZ4, Deflater.DEFAULT_COMPRESSION)
+	};
+
+	// the sample is kept in memory as parsed chunks
+	public static final int MAX_SAMPLE_SIZE = 5000;
+
+	private CompressionBenchmark() {}
+
+	public record Codec(String name, CompressionType type, int level) {}
+
+	public record Result(Codec codec, int chunks, long uncompressedBytes, long compressedBytes, long compressNanos, long decompressNanos) {
+
+		public double getRatio() {
+			return (double) compressedBytes / uncompressedBytes;
+		}
+
+		// throughput in MiB of uncompressed data per second
+		public double getCompressSpeed() {
+			return uncompressedBytes / 1048576.0 / (compressNanos / 1_000_000_000.0);
+		}
+
+		public double getDecompressSpeed() {
+			return uncompressedBytes / 1048576.0 / (decompressNanos / 1_000_000_000.0);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-12s size: %6.1f%% (%d KiB), compress: %7.1f MiB/s, decompress: %7.1f MiB/s",
+				codec.name(), getRatio() * 100, compressedBytes / 1024, getCompressSpeed(), getDecompressSpeed());
+		}
+	}
+
+	public static List<Result> benchmark(WorldDirectories world, int sampleSize, Progress progressChannel) throws IOException {
+		sampleSize = Math.min(sampleSize, MAX_SAMPLE_SIZE);
+		progressChannel.setMax(sampleSize + codecs.length);
+		progressChannel.updateProgress("sampling chunks", 0);
+
+		List<CompoundTag> sample = sample(world.getRegion(), sampleSize, progressChannel);
+		if (sample.isEmpty()) {
+			progressChannel.done("no chunks");
+			return Collections.emptyList();
+		}
+
+		ChunkCodec codec = ChunkCodec.get();
+
+		// warm up
+		for (Codec c : codecs) {
+			run(codec, c, sample.subList(0, Math.min(sample.size(), 100)));
+		}
+
+		List<Result> results = new ArrayList<>(codecs.length);
+		for (Codec c : codecs) {
+			progressChannel.setMessage(c.name());
+			results.add(run(codec, c, sample));
+			progressChannel.incrementProgress(c.name());
+		}
+		// this thread might not be from a pool that releases the codec
+		ChunkCodec.release();
+		progressChannel.done("done");
+		return results;
+	}
+
+	private static List<CompoundTag> sample(File regionDir, int sampleSize, Progress progressChannel) {
+		List<CompoundTag> sample = new ArrayList<>(sampleSize);
+		File[] files = regionDir.listFiles((d, n) -> FileHelper.MCA_FILE_PATTERN.matcher(n).matches());
+		if (files == null) {
+			return sample;
+		}
+
+		List<File> regions = new ArrayList<>(Arrays.asList(files));
+		Collections.shuffle(regions, new Random(0));
+
+		// take a few chunks from many regions instead of all chunks of a single region
+		int perRegion = Math.max(1, Math.min(1024, sampleSize / Math.max(1, Math.min(regions.size(), 64))));
+
+		Random random = new Random(0);
+		for (File file : regions) {
+			if (sample.size() >= sampleSize) {
+				break;
+			}
+			RegionMCAFile region = new RegionMCAFile(file);
+			try {
+				region.load();
+			} catch (IOException ex) {
+				LOGGER.warn("failed to load {}", file, ex);
+				continue;
+			}
+
+			List<CompoundTag> chunks = new ArrayList<>();
+			for (int i = 0; i < 1024; i++) {
+				RegionChunk chunk = region.getChunk(i);
+				if (chunk != null && chunk.getData() != null) {
+					chunks.add(chunk.getData());
+				}
+			}
+			Collections.shuffle(chunks, random);
+			for (int i = 0; i < chunks.size() && i < perRegion && sample.size() < sampleSize; i++) {
+				sample.add(chunks.get(i));
+				progressChannel.incrementProgress(file.getName());
+			}
+		}
+		return sample;
+	}
+
+	private static Result run(ChunkCodec codec, Codec c, List<CompoundTag> sample) throws IOException {
+		long uncompressedBytes = 0;
+		for (CompoundTag data : sample) {
+			uncompressedBytes += codec.compress(data, CompressionType.UNCOMPRESSED, Deflater.DEFAULT_COMPRESSION);
+		}
+
+		byte[][] compressed = new byte[sample.size()][];
+		long compressedBytes = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < sample.size(); i++) {
+			int size = codec.compress(sample.get(i), c.type(), c.level());
+			compressed[i] = Arrays.copyOf(codec.getResult(), size);
+			compressedBytes += size;
+		}
+		long compressNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (byte[] data : compressed) {
+			new NBTReader().read(new DataInputStream(codec.decompress(new ByteArrayInputStream(data), data.length, c.type())));
+		}
+		long decompressNanos = System.nanoTime() - start;
+
+		return new Result(c, sample.size(), uncompressedBytes, compressedBytes, compressNanos, decompressNanos);
+	}
+}
@@ -63,6 +63,11 @@ public final class FieldChanger {
 			this.progressChannel = progressChannel;
 		}
 
+		@Override
+		public boolean canPrefetch() {
+			return selection == null || selection.isAnyChunkInRegionSelected(getRegionDirectories().getLocation());
+		}
+
 		@Override
 		public boolean execute() {
 			if (selection != null) {
@@ -3,6 +3,7 @@ package net.querz.mcaselector.io.job;
 import net.querz.mcaselector.io.ByteArrayPointer;
 import net.querz.mcaselector.io.RegionDirectories;
 import net.querz.mcaselector.io.mca.ChunkData;
+import net.querz.mcaselector.io.mca.ChunkPool;
 import net.querz.mcaselector.io.mca.EntitiesMCAFile;
 import net.querz.mcaselector.io.mca.PoiMCAFile;
 import net.querz.mcaselector.io.mca.RegionMCAFile;
@@ -95,7 +96,7 @@ public class ParseDataJob extends ProcessDataJob {
 				// load EntitiesMCAFile
 				ByteArrayPointer ptr = new ByteArrayPointer(regionData);
 				try {
-					regionMCAFile.load(ptr);
+					regionMCAFile.loadLazy(ptr);
 				} catch (IOException ex) {
 					LOGGER.warn("failed to read mca file header from {}", getRegionDirectories().getRegion());
 				}
@@ -112,7 +113,7 @@ public class ParseDataJob extends ProcessDataJob {
 				// load EntitiesMCAFile
 				ByteArrayPointer ptr = new ByteArrayPointer(entitiesData);
 				try {
-					entitiesMCAFile.load(ptr);
+					entitiesMCAFile.loadLazy(ptr);
 				} catch (IOException ex) {
 					LOGGER.warn("failed to read mca file header from {}", getRegionDirectories().getEntities());
 				}
@@ -129,7 +130,7 @@ public class ParseDataJob extends ProcessDataJob {
 				// load PoiMCAFile
 				ByteArrayPointer ptr = new ByteArrayPointer(poiData);
 				try {
-					poiMCAFile.load(ptr);
+					poiMCAFile.loadLazy(ptr);
 				} catch (IOException ex) {
 					LOGGER.warn("failed to read mca file header from {}", getRegionDirectories().getPoi());
 				}
@@ -143,19 +144,23 @@ public class ParseDataJob extends ProcessDataJob {
 			return true;
 		}
 
+		// there is only a single parse thread, so the chunks are decoded and parsed on all cores
 		int[] data = new int[1024];
-		for (int i = 0; i < 1024; i++) {
+		RegionMCAFile finalRegionMCAFile = regionMCAFile;
+		PoiMCAFile finalPoiMCAFile = poiMCAFile;
+		EntitiesMCAFile finalEntitiesMCAFile = entitiesMCAFile;
+		ChunkPool.forEachChunk(i -> {
 			ChunkData chunkData = new ChunkData(
-					regionMCAFile == null ? null : regionMCAFile.getChunk(i),
-					poiMCAFile == null ? null : poiMCAFile.getChunk(i),
-					entitiesMCAFile == null ? null : entitiesMCAFile.getChunk(i),
+					finalRegionMCAFile == null ? null : finalRegionMCAFile.getChunk(i),
+					finalPoiMCAFile == null ? null : finalPoiMCAFile.getChunk(i),
+					finalEntitiesMCAFile == null ? null : finalEntitiesMCAFile.getChunk(i),
 					false);
 			try {
 				data[i] = chunkData.parseData(parser);
 			} catch (Exception ex) {
 				LOGGER.warn("failed to parse chunk data at index {}", i, ex);
 			}
-		}
+		});
 
 		dataCallback.accept(data, world);
 		setLoading(tile, false);
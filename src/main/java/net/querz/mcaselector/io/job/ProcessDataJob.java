@@ -1,7 +1,11 @@
 package net.querz.mcaselector.io.job;
 
+import net.querz.mcaselector.io.ByteArrayPointer;
+import net.querz.mcaselector.io.DataPointer;
 import net.querz.mcaselector.io.FileHelper;
 import net.querz.mcaselector.io.Job;
+import net.querz.mcaselector.io.JobHandler;
+import net.querz.mcaselector.io.MappedFilePointer;
 import net.querz.mcaselector.io.RegionDirectories;
 import net.querz.mcaselector.progress.Timer;
 import org.apache.logging.log4j.LogManager;
@@ -19,6 +23,8 @@ public abstract class ProcessDataJob extends Job {
 
 	protected Consumer<Throwable> errorHandler;
 
+	private long readNanos;
+
 	public ProcessDataJob(RegionDirectories dirs, int priority) {
 		super(dirs, priority);
 	}
@@ -47,10 +53,47 @@ public abstract class ProcessDataJob extends Job {
 		return load(getRegionDirectories().getRegion(), FileHelper.HEADER_SIZE);
 	}
 
+	public DataPointer mapPoi() {
+		return map(getRegionDirectories().getPoi());
+	}
+
+	public DataPointer mapEntities() {
+		return map(getRegionDirectories().getEntities());
+	}
+
+	public DataPointer mapRegion() {
+		return map(getRegionDirectories().getRegion());
+	}
+
+	// maps the file into memory instead of reading it completely.
+	// should only be used by read-only jobs, because the mapping prevents
+	// the file from being replaced on some platforms until it has been garbage collected.
+	// falls back to reading the file if mapping is disabled, which it is outside of cli runs.
+	protected DataPointer map(File file) {
+		if (!MappedFilePointer.isEnabled()) {
+			byte[] data = load(file);
+			return data == null || data.length < FileHelper.HEADER_SIZE ? null : new ByteArrayPointer(data);
+		}
+		Timer t = new Timer();
+		MappedFilePointer ptr = MappedFilePointer.map(file, FileHelper.HEADER_SIZE);
+		if (ptr != null) {
+			LOGGER.debug("mapped {} in {}", file.getAbsolutePath(), t);
+		}
+		return ptr;
+	}
+
 	protected byte[] load(File file) {
 		if (file == null) {
 			return null;
 		}
+		long start = System.nanoTime();
+		byte[] prefetched = JobHandler.takePrefetched(file);
+		if (prefetched != null) {
+			// time spent waiting for the prefetcher
+			readNanos += System.nanoTime() - start;
+			LOGGER.debug("took {} bytes of {} from prefetcher", prefetched.length, file.getAbsolutePath());
+			return prefetched;
+		}
 		long length = file.length();
 		if (length > 0) {
 			return load(file, (int) length);
@@ -62,7 +105,9 @@ public abstract class ProcessDataJob extends Job {
 		if (file == null || !file.exists() || file.length() < length) {
 			return null;
 		}
+		JobHandler.reserveInFlightBytes(length);
 		Timer t = new Timer();
+		long start = System.nanoTime();
 		int read;
 		byte[] data = new byte[length];
 		try (InputStream is = Files.newInputStream(file.toPath(), StandardOpenOption.READ)) {
@@ -70,11 +115,25 @@ public abstract class ProcessDataJob extends Job {
 		} catch (IOException ex) {
 			LOGGER.warn("failed to read data from {}", file, ex);
 			return null;
+		} finally {
+			readNanos += System.nanoTime() - start;
 		}
 		LOGGER.debug("read {} bytes from {} in {}", read, file.getAbsolutePath(), t);
 		return data;
 	}
 
+	// time this job spent waiting for the disk
+	public long getReadNanos() {
+		return readNanos;
+	}
+
+	// can be overwritten by jobs that read the region, poi and entities files completely,
+	// so they can be read on a separate thread before a process thread picks up this job.
+	// should return false if the job will return without reading the files.
+	public boolean canPrefetch() {
+		return false;
+	}
+
 	@Override
 	public void run() {
 		try {
@@ -0,0 +1,137 @@
+package net.querz.mcaselector.io.job;
+
+import net.querz.mcaselector.config.ConfigProvider;
+import net.querz.mcaselector.io.JobHandler;
+import net.querz.mcaselector.io.RegionDirectories;
+import net.querz.mcaselector.io.WorldDirectories;
+import net.querz.mcaselector.io.mca.Fragmentation;
+import net.querz.mcaselector.io.mca.MCAFile;
+import net.querz.mcaselector.io.mca.Region;
+import net.querz.mcaselector.progress.Progress;
+import net.querz.mcaselector.progress.Timer;
+import net.querz.mcaselector.selection.Selection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// compacts all mca files whose share of unused sectors is at least wasteThreshold.
+// only the headers are read to find these files, everything else is left untouched.
+public final class RegionCompactor {
+
+	private static final Logger LOGGER = LogManager.getLogger(RegionCompactor.class);
+
+	private RegionCompactor() {}
+
+	// before collects the fragmentation of all scanned files, after the fragmentation of all files once compaction is done
+	public static void compact(Selection selection, double wasteThreshold, Fragmentation before, Fragmentation after, Progress progressChannel) {
+		WorldDirectories wd = ConfigProvider.WORLD.getWorldDirs();
+		RegionDirectories[] rd = wd.listRegions(selection);
+		if (rd == null || rd.length == 0) {
+			progressChannel.done("no files");
+			return;
+		}
+
+		JobHandler.clearQueues();
+
+		progressChannel.setMax(rd.length);
+		progressChannel.updateProgress(rd[0].getLocationAsFileName(), 0);
+
+		Consumer<Throwable> errorHandler = t -> progressChannel.incrementProgress("error");
+
+		for (RegionDirectories r : rd) {
+			MCACompactProcessJob job = new MCACompactProcessJob(r, wasteThreshold, before, after, progressChannel);
+			job.errorHandler = errorHandler;
+			JobHandler.addJob(job);
+		}
+	}
+
+	private static class MCACompactProcessJob extends ProcessDataJob {
+
+		private final Progress progressChannel;
+		private final double wasteThreshold;
+		private final Fragmentation before;
+		private final Fragmentation after;
+
+		private MCACompactProcessJob(RegionDirectories dirs, double wasteThreshold, Fragmentation before, Fragmentation after, Progress progressChannel) {
+			super(dirs, PRIORITY_LOW);
+			this.wasteThreshold = wasteThreshold;
+			this.before = before;
+			this.after = after;
+			this.progressChannel = progressChannel;
+		}
+
+		@Override
+		public boolean execute() {
+			byte[] regionData = loadRegionHeader();
+			byte[] poiData = loadPoiHeader();
+			byte[] entitiesData = loadEntitiesHeader();
+
+			if (regionData == null && poiData == null && entitiesData == null) {
+				LOGGER.warn("failed to load any data from {}", getRegionDirectories().getLocationAsFileName());
+				progressChannel.incrementProgress(getRegionDirectories().getLocationAsFileName());
+				return true;
+			}
+
+			try {
+				Region region = Region.loadRegionHeaders(getRegionDirectories(), regionData, poiData, entitiesData);
+
+				List<MCAFile<?>> fragmented = new ArrayList<>(3);
+				for (MCAFile<?> file : new MCAFile<?>[]{region.getRegion(), region.getPoi(), region.getEntities()}) {
+					if (file == null) {
+						continue;
+					}
+					Fragmentation fragmentation = file.getFragmentation();
+					before.add(fragmentation);
+					LOGGER.debug("fragmentation of {}: {}", file.getFile(), fragmentation);
+					if (fragmentation.getUnusedSectors() > 0 && fragmentation.getWasteRatio() >= wasteThreshold) {
+						fragmented.add(file);
+					} else {
+						after.add(fragmentation);
+					}
+				}
+
+				if (!fragmented.isEmpty()) {
+					MCACompactSaveJob job = new MCACompactSaveJob(getRegionDirectories(), fragmented, after, progressChannel);
+					job.errorHandler = errorHandler;
+					JobHandler.executeSaveData(job);
+					return false;
+				}
+			} catch (Exception ex) {
+				LOGGER.warn("error reading headers of {}", getRegionDirectories().getLocationAsFileName(), ex);
+			}
+			progressChannel.incrementProgress(getRegionDirectories().getLocationAsFileName());
+			return true;
+		}
+	}
+
+	private static class MCACompactSaveJob extends SaveDataJob<List<MCAFile<?>>> {
+
+		private final Progress progressChannel;
+		private final Fragmentation after;
+
+		private MCACompactSaveJob(RegionDirectories dirs, List<MCAFile<?>> files, Fragmentation after, Progress progressChannel) {
+			super(dirs, files);
+			this.after = after;
+			this.progressChannel = progressChannel;
+		}
+
+		@Override
+		public void execute() {
+			Timer t = new Timer();
+			for (MCAFile<?> file : getData()) {
+				try {
+					file.deFragment();
+					if (file.getFile().exists()) {
+						after.add(file.getFragmentation());
+					}
+				} catch (Exception ex) {
+					LOGGER.warn("failed to compact {}", file.getFile(), ex);
+				}
+			}
+			progressChannel.incrementProgress(getRegionDirectories().getLocationAsFileName());
+			LOGGER.debug("took {} to compact {}", t, getRegionDirectories().getLocationAsFileName());
+		}
+	}
+}
@@ -1,6 +1,5 @@
 package net.querz.mcaselector.io.job;
 
-import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
 import net.querz.mcaselector.config.Config;
 import net.querz.mcaselector.config.ConfigProvider;
@@ -14,8 +13,6 @@ import net.querz.mcaselector.progress.Progress;
 import net.querz.mcaselector.progress.Timer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
@@ -153,9 +150,9 @@ public final class RegionImageGenerator {
 		@Override
 		public boolean execute() {
 			RegionMCAFile cachedRegion = getCachedRegionMCAFile(tile.getLocation());
-			byte[] data = null;
+			DataPointer data = null;
 			if (cachedRegion == null) {
-				data = load(tile.getMCAFile());
+				data = map(tile.getMCAFile());
 			}
 			if (data == null && cachedRegion == null) {
 				callback.accept(null, uniqueID);
@@ -168,13 +165,12 @@ public final class RegionImageGenerator {
 			LOGGER.debug("generating image for {}", tile.getMCAFile().getAbsolutePath());
 
 			File file = tile.getMCAFile();
-			ByteArrayPointer ptr = new ByteArrayPointer(data);
 			boolean isCached = false;
 			if (cachedRegion == null) {
 				cachedRegion = new RegionMCAFile(file);
 				try {
 					Timer t = new Timer();
-					cachedRegion.load(ptr);
+					cachedRegion.load(data);
 					LOGGER.debug("took {} to read mca file {}", t, cachedRegion.getFile().getName());
 				} catch (IOException ex) {
 					LOGGER.warn("failed to load mca file {}", cachedRegion.getFile().getName());
@@ -184,10 +180,13 @@ public final class RegionImageGenerator {
 			}
 
 			if (zoomLevel == null) {
-				for (int z = Config.MIN_ZOOM_LEVEL; z <= Config.MAX_ZOOM_LEVEL; z *= 2) {
-					Timer t = new Timer();
-					Image image = TileImage.generateImage(cachedRegion, z);
-					LOGGER.debug("took {} to generate image for region {}", t, tile.getLocation());
+				// render all zoom levels from a single pass over the chunks
+				Timer t = new Timer();
+				Image[] images = TileImage.generateImages(cachedRegion, Config.MIN_ZOOM_LEVEL, Config.MAX_ZOOM_LEVEL);
+				LOGGER.debug("took {} to generate images for region {}", t, tile.getLocation());
+
+				for (int i = 0, z = Config.MIN_ZOOM_LEVEL; z <= Config.MAX_ZOOM_LEVEL; i++, z *= 2) {
+					Image image = images[i];
 
 					callback.accept(image, uniqueID);
 
@@ -268,13 +267,12 @@ public final class RegionImageGenerator {
 
 			// save image to cache
 			try {
-				BufferedImage img = SwingFXUtils.fromFXImage(getData(), null);
-				File cacheFile = FileHelper.createPNGFilePath(ConfigProvider.WORLD.getCacheDir(zoomLevel), tile.getLocation());
+				File cacheFile = CacheHelper.getCacheFile(zoomLevel, tile.getLocation());
 				if (!cacheFile.getParentFile().exists() && !cacheFile.getParentFile().mkdirs()) {
 					LOGGER.warn("failed to create cache directory for {}", cacheFile.getAbsolutePath());
 				}
 				LOGGER.debug("writing cache file {}", cacheFile.getAbsolutePath());
-				ImageIO.write(img, "png", cacheFile);
+				CacheHelper.getTileCache().write(cacheFile, getData());
 			} catch (IOException ex) {
 				LOGGER.warn("failed to save images to cache for {}", tile.getLocation(), ex);
 			}
@@ -283,7 +281,7 @@ public final class RegionImageGenerator {
 				progressChannel.incrementProgress(FileHelper.createMCAFileName(tile.getLocation()));
 			}
 
-			LOGGER.debug("took {} to cache image of {} to {}", t, tile.getMCAFile().getName(), FileHelper.createPNGFileName(tile.getLocation()));
+			LOGGER.debug("took {} to cache image of {} to {}", t, tile.getMCAFile().getName(), FileHelper.createCacheFileName(tile.getLocation(), CacheHelper.getTileCache().getExtension()));
 
 			done();
 		}
@@ -0,0 +1,108 @@
+package net.querz.mcaselector.io.job;
+
+import net.querz.mcaselector.io.CompiledGroovyScript;
+import net.querz.mcaselector.io.GroovyScriptEngine;
+import net.querz.mcaselector.io.mca.ChunkData;
+import net.querz.mcaselector.progress.Progress;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import javax.script.ScriptException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// measures the overhead of calling the filter function of a groovy script for a single chunk,
+// through a shared script engine and through a compiled script with an instance per thread
+public final class ScriptBenchmark {
+
+	private static final Logger LOGGER = LogManager.getLogger(ScriptBenchmark.class);
+
+	// does as little as possible, so only the cost of the call is measured
+	private static final String script = """
+			import net.querz.mcaselector.io.mca.ChunkData
+
+			boolean filter(ChunkData data) {
+				return data.selected()
+			}""";
+
+	private ScriptBenchmark() {}
+
+	public record Result(String name, int threads, long invocations, long nanos) {
+
+		public double getNanosPerInvocation() {
+			return (double) nanos * threads / invocations;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-20s threads: %3d, %9.1f ns per chunk, %12.0f chunks/s",
+				name, threads, getNanosPerInvocation(), invocations / (nanos / 1_000_000_000.0));
+		}
+	}
+
+	@FunctionalInterface
+	private interface Invocation {
+		boolean filter(ChunkData data) throws Exception;
+	}
+
+	public static List<Result> benchmark(int invocations, int threads, Progress progressChannel) throws ScriptException {
+		progressChannel.setMax(4);
+		progressChannel.updateProgress("compiling script", 0);
+
+		GroovyScriptEngine engine = new GroovyScriptEngine();
+		engine.eval(script);
+		CompiledGroovyScript compiled = new CompiledGroovyScript(script, true);
+		compiled.compile();
+		LOGGER.debug("compiled benchmark script {}", compiled.isCompiledStatic() ? "statically" : "dynamically");
+
+		Invocation shared = data -> engine.test("filter", data);
+		Invocation perThread = data -> compiled.get().filter(data);
+
+		List<Result> results = new ArrayList<>();
+		for (int t : new int[]{1, threads}) {
+			// warm up
+			run(shared, Math.min(invocations, 100_000), t);
+			results.add(new Result("script engine", t, invocations, run(shared, invocations, t)));
+			progressChannel.incrementProgress("script engine");
+
+			run(perThread, Math.min(invocations, 100_000), t);
+			results.add(new Result("compiled", t, invocations, run(perThread, invocations, t)));
+			progressChannel.incrementProgress("compiled");
+		}
+		progressChannel.done("done");
+		return results;
+	}
+
+	// returns the wall time it took to split the invocations across the threads
+	private static long run(Invocation invocation, int invocations, int threads) {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			ChunkData data = new ChunkData(null, null, null, true);
+			int perThread = Math.max(invocations / threads, 1);
+			List<Future<Integer>> futures = new ArrayList<>(threads);
+			long start = System.nanoTime();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(() -> {
+					int matched = 0;
+					for (int j = 0; j < perThread; j++) {
+						if (invocation.filter(data)) {
+							matched++;
+						}
+					}
+					return matched;
+				}));
+			}
+			for (Future<Integer> future : futures) {
+				future.get();
+			}
+			return System.nanoTime() - start;
+		} catch (InterruptedException | ExecutionException ex) {
+			throw new RuntimeException(ex);
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -22,6 +22,11 @@ public final class SelectionDeleter {
 	private SelectionDeleter() {}
 
 	public static void deleteSelection(Selection selection, Progress progressChannel) {
+		deleteSelection(selection, progressChannel, false);
+	}
+
+	// inPlace only clears the header entries of deleted chunks instead of defragmenting the files
+	public static void deleteSelection(Selection selection, Progress progressChannel, boolean inPlace) {
 		if (selection.isEmpty()) {
 			progressChannel.done("no selection");
 			return;
@@ -42,7 +47,7 @@ public final class SelectionDeleter {
 		Consumer<Throwable> errorHandler = t -> progressChannel.incrementProgress("error");
 
 		for (Long2ObjectMap.Entry<ChunkSet> entry : trueSelection) {
-			MCADeleteSelectionProcessJob job = new MCADeleteSelectionProcessJob(FileHelper.createRegionDirectories(new Point2i(entry.getLongKey())), entry.getValue(), progressChannel);
+			MCADeleteSelectionProcessJob job = new MCADeleteSelectionProcessJob(FileHelper.createRegionDirectories(new Point2i(entry.getLongKey())), entry.getValue(), progressChannel, inPlace);
 			job.errorHandler = errorHandler;
 			JobHandler.addJob(job);
 		}
@@ -52,11 +57,13 @@ public final class SelectionDeleter {
 
 		private final Progress progressChannel;
 		private final ChunkSet selection;
+		private final boolean inPlace;
 
-		private MCADeleteSelectionProcessJob(RegionDirectories dirs, ChunkSet selection, Progress progressChannel) {
+		private MCADeleteSelectionProcessJob(RegionDirectories dirs, ChunkSet selection, Progress progressChannel, boolean inPlace) {
 			super(dirs, PRIORITY_LOW);
 			this.selection = selection;
 			this.progressChannel = progressChannel;
+			this.inPlace = inPlace;
 		}
 
 		@Override
@@ -105,7 +112,7 @@ public final class SelectionDeleter {
 
 				region.deleteChunks(selection);
 
-				MCADeleteSelectionSaveJob job = new MCADeleteSelectionSaveJob(getRegionDirectories(), region, progressChannel);
+				MCADeleteSelectionSaveJob job = new MCADeleteSelectionSaveJob(getRegionDirectories(), region, inPlace ? selection : null, progressChannel);
 				job.errorHandler = errorHandler;
 				JobHandler.executeSaveData(job);
 				return false;
@@ -121,9 +128,12 @@ public final class SelectionDeleter {
 	private static class MCADeleteSelectionSaveJob extends SaveDataJob<Region> {
 
 		private final Progress progressChannel;
+		// the chunks to delete in place, or null to defragment
+		private final ChunkSet inPlace;
 
-		private MCADeleteSelectionSaveJob(RegionDirectories dirs, Region region, Progress progressChannel) {
+		private MCADeleteSelectionSaveJob(RegionDirectories dirs, Region region, ChunkSet inPlace, Progress progressChannel) {
 			super(dirs, region);
+			this.inPlace = inPlace;
 			this.progressChannel = progressChannel;
 		}
 
@@ -131,7 +141,11 @@ public final class SelectionDeleter {
 		public void execute() {
 			Timer t = new Timer();
 			try {
-				getData().deFragment();
+				if (inPlace != null) {
+					getData().deleteChunksInPlace(inPlace);
+				} else {
+					getData().deFragment();
+				}
 			} catch (Exception ex) {
 				LOGGER.warn("failed to delete selected chunks from {}", getRegionDirectories().getLocationAsFileName(), ex);
 			}
@@ -7,6 +7,7 @@ import javafx.scene.image.PixelFormat;
 import javafx.scene.image.PixelReader;
 import net.querz.mcaselector.config.ConfigProvider;
 import net.querz.mcaselector.io.ByteArrayPointer;
+import net.querz.mcaselector.io.CacheHelper;
 import net.querz.mcaselector.io.FileHelper;
 import net.querz.mcaselector.io.ImageHelper;
 import net.querz.mcaselector.io.JobHandler;
@@ -77,13 +78,18 @@ public final class SelectionImageExporter {
 			Image image = null;
 
 			// test if the image is already in cache
-			File cacheImage = FileHelper.createPNGFilePath(ConfigProvider.WORLD.getCacheDir(), 1, getRegionDirectories().getLocation());
+			File cacheImage = CacheHelper.getCacheFile(1, getRegionDirectories().getLocation());
 			File regionFile = FileHelper.createRegionMCAFilePath(getRegionDirectories().getLocation());
 			RegionMCAFile mcaFile = null;
 			if (cacheImage.exists()) {
 				// load cached image
-				image = new Image(cacheImage.toURI().toString(), false);
-			} else if (regionFile.exists()) {
+				try {
+					image = CacheHelper.getTileCache().read(cacheImage);
+				} catch (IOException ex) {
+					LOGGER.warn("failed to load image from cache: {}", cacheImage.getAbsolutePath(), ex);
+				}
+			}
+			if (image == null && regionFile.exists()) {
 				// generate image from region file
 
 				byte[] data = load(regionFile);
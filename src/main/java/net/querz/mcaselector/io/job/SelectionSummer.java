@@ -76,11 +76,11 @@ public class SelectionSummer {
 
 			RegionMCAFile regionMCAFile = null;
 			if (regionFile.exists()) {
-				byte[] regionData = load(regionFile);
+				DataPointer regionData = map(regionFile);
 				if (regionData != null) {
 					regionMCAFile = new RegionMCAFile(regionFile);
 					try {
-						regionMCAFile.load(new ByteArrayPointer(regionData));
+						regionMCAFile.loadLazy(regionData);
 					} catch (IOException ex) {
 						throw new RuntimeException(ex);
 					}
@@ -89,11 +89,11 @@ public class SelectionSummer {
 
 			PoiMCAFile poiMCAFile = null;
 			if (poiFile.exists()) {
-				byte[] poiData = load(poiFile);
+				DataPointer poiData = map(poiFile);
 				if (poiData != null) {
 					poiMCAFile = new PoiMCAFile(poiFile);
 					try {
-						poiMCAFile.load(new ByteArrayPointer(poiData));
+						poiMCAFile.loadLazy(poiData);
 					} catch (IOException ex) {
 						throw new RuntimeException(ex);
 					}
@@ -102,11 +102,11 @@ public class SelectionSummer {
 
 			EntitiesMCAFile entitiesMCAFile = null;
 			if (entitiesFile.exists()) {
-				byte[] entitiesData = load(entitiesFile);
+				DataPointer entitiesData = map(entitiesFile);
 				if (entitiesData != null) {
 					entitiesMCAFile = new EntitiesMCAFile(entitiesFile);
 					try {
-						entitiesMCAFile.load(new ByteArrayPointer(entitiesData));
+						entitiesMCAFile.loadLazy(entitiesData);
 					} catch (IOException ex) {
 						throw new RuntimeException(ex);
 					}
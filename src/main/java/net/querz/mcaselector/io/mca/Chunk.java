@@ -1,30 +1,36 @@
 package net.querz.mcaselector.io.mca;
 
 import net.jpountz.lz4.LZ4BlockInputStream;
-import net.jpountz.lz4.LZ4BlockOutputStream;
-import net.querz.io.ExposedByteArrayOutputStream;
-import net.querz.mcaselector.io.ByteArrayPointer;
+import net.querz.mcaselector.config.ConfigProvider;
+import net.querz.mcaselector.io.DataPointer;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.point.Point3i;
 import net.querz.mcaselector.range.Range;
 import net.querz.nbt.NBTUtil;
 import net.querz.nbt.Tag;
 import net.querz.nbt.io.NBTReader;
-import net.querz.nbt.io.NBTWriter;
 import net.querz.nbt.CompoundTag;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Function;
-import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
-import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
 public abstract class Chunk {
 
+	private static final Logger LOGGER = LogManager.getLogger(Chunk.class);
+
 	protected int timestamp;
 	protected CompoundTag data;
+	private volatile DataPointer raw;
+	private int rawLength;
+	private Object[] fields;
+	private int scannedFields;
 	protected CompressionType compressionType;
 	protected final Point2i absoluteLocation;
 
@@ -32,20 +38,35 @@ public abstract class Chunk {
 		this.absoluteLocation = absoluteLocation;
 	}
 
-	public void load(ByteArrayPointer ptr) throws IOException {
+	public void load(DataPointer ptr) throws IOException {
 		int length = ptr.readInt();
 		compressionType = CompressionType.fromByte(ptr.readByte());
+		decode(ptr, length);
+	}
 
-		DataInputStream nbtIn = switch (compressionType) {
-			case GZIP -> new DataInputStream(new BufferedInputStream(new GZIPInputStream(ptr, length)));
-			case ZLIB -> new DataInputStream(new BufferedInputStream(new InflaterInputStream(ptr, new Inflater(), length)));
-			case LZ4 -> new DataInputStream(new BufferedInputStream(new LZ4BlockInputStream(ptr)));
-			case NONE, UNCOMPRESSED -> new DataInputStream(ptr);
-			case GZIP_EXT -> new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(getMCCFile()))));
-			case ZLIB_EXT -> new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(getMCCFile()))));
-			case LZ4_EXT -> new DataInputStream(new BufferedInputStream(new LZ4BlockInputStream(new FileInputStream(getMCCFile()))));
-			case NONE_EXT, UNCOMPRESSED_EXT -> new DataInputStream(new BufferedInputStream(new FileInputStream(getMCCFile())));
-		};
+	// only reads the chunk header and keeps a pointer to the compressed data,
+	// which is decompressed and parsed the first time getData() is called.
+	public void loadLazy(DataPointer ptr) throws IOException {
+		int length = ptr.readInt();
+		compressionType = CompressionType.fromByte(ptr.readByte());
+		try {
+			raw = switch (compressionType) {
+				// length includes the compression type byte
+				case GZIP, ZLIB, LZ4, NONE, UNCOMPRESSED -> ptr.slice(length - 1);
+				default -> null;
+			};
+		} catch (ArrayIndexOutOfBoundsException ex) {
+			throw new IOException(ex);
+		}
+		rawLength = length;
+		if (raw == null) {
+			// external chunk data, there is nothing to keep
+			decode(ptr, length);
+		}
+	}
+
+	private void decode(DataPointer ptr, int length) throws IOException {
+		DataInputStream nbtIn = openStream(ptr, length);
 
 		Tag tag = new NBTReader().read(nbtIn);
 
@@ -56,13 +77,111 @@ public abstract class Chunk {
 		}
 	}
 
+	private DataInputStream openStream(DataPointer ptr, int length) throws IOException {
+		return switch (compressionType) {
+			case GZIP, ZLIB, LZ4, NONE, UNCOMPRESSED -> new DataInputStream(ChunkCodec.get().decompress(ptr, length - 1, compressionType));
+			case GZIP_EXT -> new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(getMCCFile()))));
+			case ZLIB_EXT -> new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(getMCCFile()))));
+			case LZ4_EXT -> new DataInputStream(new BufferedInputStream(new LZ4BlockInputStream(new FileInputStream(getMCCFile()))));
+			case NONE_EXT, UNCOMPRESSED_EXT -> new DataInputStream(new BufferedInputStream(new FileInputStream(getMCCFile())));
+		};
+	}
+
+	private synchronized void decodeLazy() {
+		if (raw == null) {
+			return;
+		}
+		try {
+			// raw might have been read before, e.g. when it was copied by save()
+			raw.seek(0);
+			decode(raw.slice(rawLength - 1), rawLength);
+		} catch (Exception ex) {
+			data = null;
+			LOGGER.warn("failed to load chunk at {}", absoluteLocation, ex);
+		} finally {
+			raw = null;
+			fields = null;
+			scannedFields = 0;
+		}
+	}
+
+	// reads the values of the given fields without parsing the entire chunk if it hasn't been decoded yet.
+	// all fields that haven't been read before are extracted in a single pass over the decompressed data.
+	public synchronized void prefetchFields(ChunkField... fields) {
+		if (raw == null) {
+			return;
+		}
+		int missing = 0;
+		for (ChunkField field : fields) {
+			if ((scannedFields & 1 << field.ordinal()) == 0) {
+				missing |= 1 << field.ordinal();
+			}
+		}
+		if (missing == 0) {
+			return;
+		}
+
+		ChunkField[] all = ChunkField.values();
+		List<String> paths = new ArrayList<>();
+		for (ChunkField field : all) {
+			if ((missing & 1 << field.ordinal()) != 0) {
+				paths.addAll(Arrays.asList(field.getPaths()));
+			}
+		}
+
+		Object[] values;
+		try {
+			raw.seek(0);
+			values = new NBTFieldScanner(paths.toArray(new String[0])).scan(openStream(raw.slice(rawLength - 1), rawLength));
+		} catch (Exception ex) {
+			LOGGER.warn("failed to scan fields of chunk at {}", absoluteLocation, ex);
+			values = new Object[paths.size()];
+		}
+
+		if (this.fields == null) {
+			this.fields = new Object[all.length];
+		}
+		int v = 0;
+		for (ChunkField field : all) {
+			if ((missing & 1 << field.ordinal()) != 0) {
+				for (int i = 0; i < field.getPaths().length; i++, v++) {
+					if (this.fields[field.ordinal()] == null) {
+						this.fields[field.ordinal()] = values[v];
+					}
+				}
+			}
+		}
+		scannedFields |= missing;
+	}
+
+	// returns the value of a scalar field as a Number or String, or null if it doesn't exist
+	public synchronized Object getField(ChunkField field) {
+		if (raw != null) {
+			prefetchFields(field);
+			return fields[field.ordinal()];
+		}
+		if (data == null) {
+			return null;
+		}
+		for (Object value : field.getScanner().resolve(data)) {
+			if (value != null) {
+				return value;
+			}
+		}
+		return null;
+	}
+
+	public boolean isLoaded() {
+		return raw == null;
+	}
+
 	public void load(RandomAccessFile raf) throws IOException {
 		int length = raf.readInt();
 		compressionType = CompressionType.fromByte(raf.readByte());
 
 		DataInputStream nbtIn = switch (compressionType) {
 			case GZIP -> new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(raf.getFD()))));
-			case ZLIB -> new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(raf.getFD()))));
+			case ZLIB -> new DataInputStream(ChunkCodec.get().inflate(new FileInputStream(raf.getFD()), length - 1));
 			case LZ4 -> new DataInputStream(new BufferedInputStream(new LZ4BlockInputStream(new FileInputStream(raf.getFD()))));
 			case NONE, UNCOMPRESSED -> new DataInputStream(new BufferedInputStream(new FileInputStream(raf.getFD()), length - 1));
 			case GZIP_EXT -> new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(getMCCFile()))));
@@ -80,21 +199,36 @@ public abstract class Chunk {
 		}
 	}
 
+	// returns the number of bytes written, 0 if the chunk doesn't have any data
 	public int save(RandomAccessFile raf) throws IOException {
-		ExposedByteArrayOutputStream baos = null;
+		CompressionType outputType = getOutputCompressionType();
+		// chunks that are too old for the configured compression keep their own
+		if (outputType != compressionType && !outputType.isSupported(getDataVersion())) {
+			outputType = compressionType.getInternal();
+		}
 
-		DataOutputStream nbtOut = switch (compressionType) {
-			case GZIP, GZIP_EXT -> new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(baos = new ExposedByteArrayOutputStream())));
-			case ZLIB, ZLIB_EXT -> new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(baos = new ExposedByteArrayOutputStream())));
-			case LZ4, LZ4_EXT -> new DataOutputStream(new BufferedOutputStream(new LZ4BlockOutputStream(baos = new ExposedByteArrayOutputStream())));
-			case NONE, NONE_EXT, UNCOMPRESSED, UNCOMPRESSED_EXT -> new DataOutputStream(new BufferedOutputStream(baos = new ExposedByteArrayOutputStream()));
-		};
+		// chunks that were never decoded can't have changed, so their compressed data is copied as is
+		if (outputType == compressionType) {
+			byte[] rawData = getRawData();
+			if (rawData != null) {
+				raf.writeInt(rawData.length + 1); // length includes the compression type byte
+				raf.writeByte(compressionType.getByte());
+				raf.write(rawData);
+				return rawData.length + 5;
+			}
+		}
 
-		new NBTWriter().write(nbtOut, data);
-		nbtOut.close();
+		CompoundTag data = getData();
+		if (data == null) {
+			// lazily loaded chunk data that turned out to be broken, nothing is written
+			return 0;
+		}
+		ChunkCodec codec = ChunkCodec.get();
+		int size = codec.compress(data, outputType, getCompressionLevel());
+		byte[] buffer = codec.getResult();
 
 		// save mcc file if chunk doesn't fit in mca file
-		if (baos.size() > 1048576) {
+		if (size > 1048576) {
 			// if the chunk's version is below 2203, we throw an exception instead
 			int dataVersion = data.getInt("DataVersion");
 			if (dataVersion < 2203) {
@@ -102,17 +236,39 @@ public abstract class Chunk {
 			}
 
 			raf.writeInt(1);
-			raf.writeByte(compressionType.getExternal().getByte());
-			try (BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(getMCCFile()), baos.size())) {
-				bos.write(baos.getBuffer(), 0, baos.size());
+			raf.writeByte(outputType.getExternal().getByte());
+			try (FileOutputStream fos = new FileOutputStream(getMCCFile())) {
+				fos.write(buffer, 0, size);
 			}
 			return 5;
 		} else {
-			raf.writeInt(baos.size() + 1); // length includes the compression type byte
-			raf.writeByte(compressionType.getByte());
-			raf.write(baos.getBuffer(), 0, baos.size());
-			return baos.size() + 5; // data length + 1 compression type byte + 4 length bytes
+			raf.writeInt(size + 1); // length includes the compression type byte
+			raf.writeByte(outputType.getByte());
+			raf.write(buffer, 0, size);
+			return size + 5; // data length + 1 compression type byte + 4 length bytes
+		}
+	}
+
+	private CompressionType getOutputCompressionType() {
+		CompressionType configured = ConfigProvider.WORLD == null ? null : ConfigProvider.WORLD.getOutputCompression();
+		return configured == null ? compressionType.getInternal() : configured;
+	}
+
+	// reads the DataVersion without decoding the chunk if it hasn't been decoded yet
+	int getDataVersion() {
+		return getField(ChunkField.DATA_VERSION) instanceof Number n ? n.intValue() : 0;
+	}
+
+	private static int getCompressionLevel() {
+		return ConfigProvider.WORLD == null ? Deflater.DEFAULT_COMPRESSION : ConfigProvider.WORLD.getCompressionLevel();
+	}
+
+	private synchronized byte[] getRawData() throws IOException {
+		if (raw == null) {
+			return null;
 		}
+		raw.seek(0);
+		return raw.readNBytes(rawLength - 1);
 	}
 
 	public abstract boolean relocate(Point3i offset);
@@ -121,15 +277,21 @@ public abstract class Chunk {
 
 	public abstract File getMCCFile();
 
+	// a lazily loaded chunk is only known to be empty once it has been decoded,
+	// so getData() can still return null if this returns false
 	public boolean isEmpty() {
-		return data == null;
+		return data == null && raw == null;
 	}
 
 	public CompoundTag getData() {
+		if (raw != null) {
+			decodeLazy();
+		}
 		return data;
 	}
 
 	public void setData(CompoundTag data) {
+		raw = null;
 		this.data = data;
 	}
 
@@ -138,6 +300,10 @@ public abstract class Chunk {
 	}
 
 	public void setCompressionType(CompressionType compressionType) {
+		// raw data can only be saved as is with its original compression
+		if (raw != null && compressionType != this.compressionType) {
+			decodeLazy();
+		}
 		this.compressionType = compressionType;
 	}
 
@@ -155,7 +321,7 @@ public abstract class Chunk {
 
 	@Override
 	public String toString() {
-		String s = NBTUtil.toSNBT(data);
+		String s = NBTUtil.toSNBT(getData());
 		return "<absoluteLocation=" + absoluteLocation + ", compressionType=" + compressionType + ", data=" + s + ">";
 	}
 
@@ -163,6 +329,7 @@ public abstract class Chunk {
 		T clone = chunkConstructor.apply(absoluteLocation);
 		clone.compressionType = compressionType;
 		clone.timestamp = timestamp;
+		CompoundTag data = getData();
 		if (data != null) {
 			clone.data = data.copy();
 		}
@@ -0,0 +1,183 @@
+package net.querz.mcaselector.io.mca;
+
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import net.querz.nbt.CompoundTag;
+import net.querz.nbt.io.NBTWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+// zlib contexts and scratch buffers for compressing and decompressing chunks, one set per thread.
+// Inflater and Deflater hold native memory until end() is called, so they are reused instead of created for every chunk.
+public final class ChunkCodec {
+
+	private static final ThreadLocal<ChunkCodec> codecs = new ThreadLocal<>();
+
+	private static final int INITIAL_BUFFER_SIZE = 256 * 1024;
+	// scratch buffers that grew larger than this because of a huge chunk are dropped again
+	private static final int MAX_RETAINED_BUFFER_SIZE = 4 * 1024 * 1024;
+	// a chunk can't span more than 255 sectors in an mca file
+	private static final int MAX_COMPRESSED_SIZE = 255 * 4096;
+
+	private final Inflater inflater = new Inflater();
+	private final Deflater deflater = new Deflater();
+	private byte[] input = new byte[INITIAL_BUFFER_SIZE];
+	private byte[] output = new byte[INITIAL_BUFFER_SIZE];
+	private final ScratchOutputStream scratch = new ScratchOutputStream();
+	private byte[] result;
+
+	private ChunkCodec() {}
+
+	public static ChunkCodec get() {
+		ChunkCodec codec = codecs.get();
+		if (codec == null) {
+			codecs.set(codec = new ChunkCodec());
+		}
+		return codec;
+	}
+
+	// frees the native zlib memory of the calling thread, should be called before a thread that used chunks terminates
+	public static void release() {
+		ChunkCodec codec = codecs.get();
+		if (codec != null) {
+			codec.inflater.end();
+			codec.deflater.end();
+			codecs.remove();
+		}
+	}
+
+	// opens a stream over the next length bytes of chunk data with the given internal compression type.
+	// zlib data is inflated into this thread's scratch buffer, so the stream is only valid until the next call.
+	public InputStream decompress(InputStream in, int length, CompressionType type) throws IOException {
+		return switch (type) {
+			case GZIP -> new BufferedInputStream(new GZIPInputStream(in, Math.max(length, 512)));
+			case ZLIB -> inflate(in, length);
+			case LZ4 -> new BufferedInputStream(new LZ4BlockInputStream(in));
+			case NONE, UNCOMPRESSED -> in;
+			default -> throw new IllegalArgumentException("external compression type " + type);
+		};
+	}
+
+	// compresses data with the given internal compression type, the level is only used for zlib.
+	// returns the size of the compressed data in getResult(), which is only valid until the next call on this thread.
+	public int compress(CompoundTag data, CompressionType type, int level) throws IOException {
+		ScratchOutputStream scratch = scratch();
+		if (type == CompressionType.ZLIB) {
+			// write uncompressed nbt to the scratch buffer and deflate it in one go with the thread's Deflater
+			new NBTWriter().write(new DataOutputStream(scratch), data);
+			int size = deflate(level);
+			result = output;
+			return size;
+		}
+
+		DataOutputStream nbtOut = switch (type) {
+			case GZIP -> new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(scratch)));
+			case LZ4 -> new DataOutputStream(new BufferedOutputStream(new LZ4BlockOutputStream(scratch)));
+			case NONE, UNCOMPRESSED -> new DataOutputStream(new BufferedOutputStream(scratch));
+			default -> throw new IllegalArgumentException("external compression type " + type);
+		};
+		new NBTWriter().write(nbtOut, data);
+		nbtOut.close();
+		result = scratch.getBuffer();
+		return scratch.size();
+	}
+
+	public byte[] getResult() {
+		return result;
+	}
+
+	// decompresses the next length bytes of zlib data from in.
+	// the returned stream is backed by this thread's scratch buffer and is only valid until the next call.
+	InputStream inflate(InputStream in, int length) throws IOException {
+		if (input.length > MAX_RETAINED_BUFFER_SIZE) {
+			input = new byte[INITIAL_BUFFER_SIZE];
+		}
+		if (output.length > MAX_RETAINED_BUFFER_SIZE) {
+			output = new byte[INITIAL_BUFFER_SIZE];
+		}
+
+		length = Math.min(length, MAX_COMPRESSED_SIZE);
+		if (input.length < length) {
+			input = new byte[length];
+		}
+		int read = in.readNBytes(input, 0, length);
+
+		inflater.reset();
+		inflater.setInput(input, 0, read);
+		int size = 0;
+		try {
+			while (!inflater.finished()) {
+				if (size == output.length) {
+					output = Arrays.copyOf(output, output.length * 2);
+				}
+				int inflated = inflater.inflate(output, size, output.length - size);
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new EOFException("unexpected end of zlib data");
+				}
+				size += inflated;
+			}
+		} catch (DataFormatException ex) {
+			throw new IOException(ex);
+		}
+		return new ByteArrayInputStream(output, 0, size);
+	}
+
+	private ScratchOutputStream scratch() {
+		if (scratch.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+			scratch.shrink(INITIAL_BUFFER_SIZE);
+		}
+		scratch.reset();
+		return scratch;
+	}
+
+	private int deflate(int level) {
+		if (output.length > MAX_RETAINED_BUFFER_SIZE) {
+			output = new byte[INITIAL_BUFFER_SIZE];
+		}
+
+		deflater.reset();
+		deflater.setLevel(level);
+		deflater.setInput(scratch.getBuffer(), 0, scratch.size());
+		deflater.finish();
+		int size = 0;
+		while (!deflater.finished()) {
+			if (size == output.length) {
+				output = Arrays.copyOf(output, output.length * 2);
+			}
+			size += deflater.deflate(output, size, output.length - size);
+		}
+		return size;
+	}
+
+	private static final class ScratchOutputStream extends ByteArrayOutputStream {
+
+		private ScratchOutputStream() {
+			super(INITIAL_BUFFER_SIZE);
+		}
+
+		private byte[] getBuffer() {
+			return buf;
+		}
+
+		private int capacity() {
+			return buf.length;
+		}
+
+		private void shrink(int size) {
+			buf = new byte[size];
+			count = 0;
+		}
+	}
+}
@@ -32,6 +32,10 @@ public record ChunkData(RegionChunk region, PoiChunk poi, EntitiesChunk entities
 	}
 
 	public int parseData(Overlay parser) {
+		ChunkField[] fields = parser.getRequiredFields();
+		if (fields != null && region != null) {
+			region.prefetchFields(fields);
+		}
 		return parser.parseValue(this);
 	}
 }
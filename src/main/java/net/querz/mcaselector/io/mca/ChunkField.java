@@ -0,0 +1,30 @@
+package net.querz.mcaselector.io.mca;
+
+// scalar values of region chunks that can be read without parsing the entire chunk.
+// chunks before 21w42a (DataVersion 2844) store most values in the "Level" compound,
+// so both locations are listed. they are mutually exclusive, the first one found is used.
+public enum ChunkField {
+
+	DATA_VERSION("DataVersion"),
+	INHABITED_TIME("InhabitedTime", "Level.InhabitedTime"),
+	LAST_UPDATE("LastUpdate", "Level.LastUpdate"),
+	STATUS("Status", "Level.Status"),
+	X_POS("xPos", "Level.xPos"),
+	Z_POS("zPos", "Level.zPos");
+
+	private final String[] paths;
+	private final NBTFieldScanner scanner;
+
+	ChunkField(String... paths) {
+		this.paths = paths;
+		this.scanner = new NBTFieldScanner(paths);
+	}
+
+	String[] getPaths() {
+		return paths;
+	}
+
+	NBTFieldScanner getScanner() {
+		return scanner;
+	}
+}
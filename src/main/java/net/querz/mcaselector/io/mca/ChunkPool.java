@@ -0,0 +1,75 @@
+package net.querz.mcaselector.io.mca;
+
+import net.querz.mcaselector.io.JobHandler;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+// shared fork join pool to spread the work on the chunks of a single region across all cores
+public final class ChunkPool {
+
+	private static final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), p -> {
+		ForkJoinWorkerThread thread = new ForkJoinWorkerThread(p) {
+			@Override
+			protected void onTermination(Throwable exception) {
+				ChunkCodec.release();
+				super.onTermination(exception);
+			}
+		};
+		thread.setName("chunkPool-thread-" + thread.getPoolIndex());
+		thread.setDaemon(true);
+		return thread;
+	}, null, false);
+
+	private ChunkPool() {}
+
+	// only spread work across cores if there are no other regions waiting to be processed,
+	// otherwise all cores are already busy with one region each.
+	public static boolean shouldFanOut() {
+		return !JobHandler.hasQueuedProcessJobs();
+	}
+
+	// calls action for every chunk index and returns once all calls are done.
+	// action needs to handle its own exceptions.
+	public static void forEachChunk(IntConsumer action) {
+		pool.submit(() -> IntStream.range(0, 1024).parallel().forEach(action)).join();
+	}
+
+	@FunctionalInterface
+	public interface IOTask {
+		void run() throws IOException;
+	}
+
+	// runs all tasks concurrently and rethrows the first IOException
+	public static void invokeAll(IOTask... tasks) throws IOException {
+		List<ForkJoinTask<?>> submitted = new ArrayList<>(tasks.length);
+		for (IOTask task : tasks) {
+			submitted.add(pool.submit(() -> {
+				task.run();
+				return null;
+			}));
+		}
+		IOException error = null;
+		for (ForkJoinTask<?> task : submitted) {
+			try {
+				task.get();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException(ex);
+			} catch (ExecutionException ex) {
+				if (error == null) {
+					error = ex.getCause() instanceof IOException io ? io : new IOException(ex.getCause());
+				}
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+}
@@ -13,6 +13,9 @@ public enum CompressionType {
 	UNCOMPRESSED_EXT(-125),
 	LZ4_EXT(-124);
 
+	// custom compression types are supported since 1.20.5, lz4 is the only one built into minecraft
+	private static final int LZ4_MIN_DATA_VERSION = 3837;
+
 	private final byte type;
 
 	CompressionType(int type) {
@@ -32,6 +35,26 @@ public enum CompressionType {
 		return type;
 	}
 
+	public boolean isSupported(int dataVersion) {
+		return switch (this) {
+			case LZ4, LZ4_EXT -> dataVersion >= LZ4_MIN_DATA_VERSION;
+			default -> true;
+		};
+	}
+
+	public CompressionType getInternal() {
+		return switch (this) {
+			case NONE_EXT -> NONE;
+			case GZIP_EXT -> GZIP;
+			case ZLIB_EXT -> ZLIB;
+			case UNCOMPRESSED_EXT -> UNCOMPRESSED;
+			case LZ4_EXT -> LZ4;
+			default ->
+				// this is already an internal type
+				this;
+		};
+	}
+
 	public CompressionType getExternal() {
 		return switch (this) {
 			case NONE -> NONE_EXT;
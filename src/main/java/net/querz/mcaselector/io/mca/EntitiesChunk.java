@@ -19,14 +19,18 @@ public class EntitiesChunk extends Chunk implements Cloneable {
 
 	@Override
 	public boolean relocate(Point3i offset) {
+		CompoundTag data = getData();
+		if (data == null) {
+			return false;
+		}
 		ChunkRelocator relocator = VersionController.getEntityRelocator(data.getIntOrDefault("DataVersion", 0));
 		return relocator.relocate(data, offset);
 	}
 
 	@Override
 	public void merge(CompoundTag destination, List<Range> ranges, int yOffset) {
-		ChunkMerger merger = VersionController.getEntityMerger(data.getIntOrDefault("DataVersion", 0));
-		merger.mergeChunks(data, destination, ranges, yOffset);
+		ChunkMerger merger = VersionController.getEntityMerger(getData().getIntOrDefault("DataVersion", 0));
+		merger.mergeChunks(getData(), destination, ranges, yOffset);
 	}
 
 	@Override
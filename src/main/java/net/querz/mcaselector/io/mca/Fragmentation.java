@@ -0,0 +1,71 @@
+package net.querz.mcaselector.io.mca;
+
+// sector usage of one or more mca files, computed from their headers
+public class Fragmentation {
+
+	private int files;
+	private long fileSectors;
+	private long usedSectors;
+	private int chunks;
+	private int overlapping;
+	private int outOfOrder;
+
+	public Fragmentation() {}
+
+	Fragmentation(long fileSectors, long usedSectors, int chunks, int overlapping, int outOfOrder) {
+		this.files = 1;
+		this.fileSectors = fileSectors;
+		this.usedSectors = usedSectors;
+		this.chunks = chunks;
+		this.overlapping = overlapping;
+		this.outOfOrder = outOfOrder;
+	}
+
+	public synchronized void add(Fragmentation other) {
+		files += other.files;
+		fileSectors += other.fileSectors;
+		usedSectors += other.usedSectors;
+		chunks += other.chunks;
+		overlapping += other.overlapping;
+		outOfOrder += other.outOfOrder;
+	}
+
+	public int getFiles() {
+		return files;
+	}
+
+	public long getFileSectors() {
+		return fileSectors;
+	}
+
+	public long getUsedSectors() {
+		return usedSectors;
+	}
+
+	// sectors that are neither part of the header nor used by any chunk
+	public long getUnusedSectors() {
+		return Math.max(0, fileSectors - files * 2L - usedSectors);
+	}
+
+	public int getChunks() {
+		return chunks;
+	}
+
+	public int getOverlapping() {
+		return overlapping;
+	}
+
+	public int getOutOfOrder() {
+		return outOfOrder;
+	}
+
+	public double getWasteRatio() {
+		return fileSectors == 0 ? 0 : (double) getUnusedSectors() / fileSectors;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("files=%d, chunks=%d, sectors=%d, used=%d, unused=%d (%.1f%%, %d KiB), overlapping=%d, outOfOrder=%d",
+			files, chunks, fileSectors, usedSectors, getUnusedSectors(), getWasteRatio() * 100, getUnusedSectors() * 4, overlapping, outOfOrder);
+	}
+}
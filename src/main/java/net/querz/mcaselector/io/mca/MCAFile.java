@@ -1,24 +1,23 @@
 package net.querz.mcaselector.io.mca;
 
-import net.querz.mcaselector.io.ByteArrayPointer;
+import net.querz.mcaselector.io.DataPointer;
 import net.querz.mcaselector.io.FileHelper;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.point.Point3i;
 import net.querz.mcaselector.range.Range;
 import net.querz.mcaselector.selection.ChunkSet;
+import net.querz.nbt.CompoundTag;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -109,7 +108,11 @@ public abstract class MCAFile<T extends Chunk> {
 				continue;
 			}
 
-			lastWritten = chunk.save(raf);
+			int written = chunk.save(raf);
+			if (written == 0) {
+				continue;
+			}
+			lastWritten = written;
 
 			int sectors = (lastWritten >> 12) + (lastWritten % 4096 == 0 ? 0 : 1);
 
@@ -174,19 +177,18 @@ public abstract class MCAFile<T extends Chunk> {
 				rafTmp.seek(4096 + i * 4L);
 				rafTmp.writeInt(timestamps[i]);
 
-				// copy chunk data to tmp file
-				source.seek(offsets[i] * 4096L);
+				// copy chunk data to tmp file, letting the os copy the sectors directly between the files
 				rafTmp.seek(globalOffset * 4096L);
+				transferFully(source.getChannel(), offsets[i] * 4096L, sectors * 4096L, rafTmp.getChannel());
 
-				DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(source.getFD()), sectors * 4096));
-				DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(rafTmp.getFD()), sectors * 4096));
-
-				byte[] data = new byte[sectors * 4096];
-				dis.read(data);
-				dos.write(data);
 				offsets[i] = globalOffset; // always keep MCAFile information up to date
 				globalOffset += sectors;
 			}
+
+			// chunks at the end of a truncated source file might not have been copied completely
+			if (skippedChunks != 1024) {
+				rafTmp.setLength(globalOffset * 4096L);
+			}
 		}
 
 		if (skippedChunks == 1024) {
@@ -207,6 +209,109 @@ public abstract class MCAFile<T extends Chunk> {
 		}
 	}
 
+	// deletes chunks by only clearing their offsets and timestamps in the header of the file.
+	// their data stays in the file until it is defragmented, so this is much faster than deFragment() for large files.
+	// loadHeader needs to be called before.
+	public void deleteChunksInPlace(ChunkSet selection) throws IOException {
+		deleteChunks(selection);
+
+		boolean empty = true;
+		for (int offset : offsets) {
+			if (offset != 0) {
+				empty = false;
+				break;
+			}
+		}
+		if (empty) {
+			LOGGER.debug("all chunks in {} deleted, removing entire file", file.getAbsolutePath());
+			if (!file.delete()) {
+				LOGGER.warn("failed to delete file {} after all chunks were deleted", file.getAbsolutePath());
+			}
+			return;
+		}
+
+		try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+			// clear consecutive chunks with a single write
+			int start = -1, end = -1;
+			for (int index : selection) {
+				if (index == end) {
+					end++;
+					continue;
+				}
+				if (start != -1) {
+					clearHeaderEntries(fc, start, end);
+				}
+				start = index;
+				end = index + 1;
+			}
+			if (start != -1) {
+				clearHeaderEntries(fc, start, end);
+			}
+		}
+	}
+
+	private static void transferFully(FileChannel src, long position, long count, FileChannel dst) throws IOException {
+		long end = Math.min(position + count, src.size());
+		while (position < end) {
+			long transferred = src.transferTo(position, end - position, dst);
+			if (transferred <= 0) {
+				break;
+			}
+			position += transferred;
+		}
+	}
+
+	private static void clearHeaderEntries(FileChannel fc, int from, int to) throws IOException {
+		ByteBuffer zeros = ByteBuffer.allocate((to - from) * 4);
+		writeFully(fc, zeros, from * 4L);
+		writeFully(fc, zeros.clear(), 4096 + from * 4L);
+	}
+
+	private static void writeFully(FileChannel fc, ByteBuffer buf, long position) throws IOException {
+		while (buf.hasRemaining()) {
+			position += fc.write(buf, position);
+		}
+	}
+
+	// calculates how many sectors of this file are actually used by chunks.
+	// loadHeader needs to be called before.
+	public Fragmentation getFragmentation() {
+		long fileSectors = (file.length() + 4095) >> 12;
+
+		long[] extents = new long[1024];
+		int chunks = 0, outOfOrder = 0;
+		int lastOffset = 0;
+		for (int i = 0; i < offsets.length; i++) {
+			if (offsets[i] == 0 || sectors[i] == 0) {
+				continue;
+			}
+			// deFragment writes chunks in index order
+			if (offsets[i] < lastOffset) {
+				outOfOrder++;
+			}
+			lastOffset = offsets[i];
+			extents[chunks++] = (long) offsets[i] << 8 | sectors[i] & 0xFF;
+		}
+		Arrays.sort(extents, 0, chunks);
+
+		long usedSectors = 0;
+		long end = 2;
+		int overlapping = 0;
+		for (int i = 0; i < chunks; i++) {
+			long start = extents[i] >> 8;
+			long stop = Math.min(start + (extents[i] & 0xFF), fileSectors);
+			if (start < end) {
+				overlapping++;
+				start = end;
+			}
+			if (stop > start) {
+				usedSectors += stop - start;
+				end = stop;
+			}
+		}
+		return new Fragmentation(fileSectors, usedSectors, chunks, overlapping, outOfOrder);
+	}
+
 	public int[] load() throws IOException {
 		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
 			loadHeader(raf);
@@ -235,7 +340,16 @@ public abstract class MCAFile<T extends Chunk> {
 		}
 	}
 
-	public int[] load(ByteArrayPointer ptr) throws IOException {
+	public int[] load(DataPointer ptr) throws IOException {
+		return load(ptr, false);
+	}
+
+	// only decompresses and parses chunks when their data is accessed for the first time
+	public int[] loadLazy(DataPointer ptr) throws IOException {
+		return load(ptr, true);
+	}
+
+	private int[] load(DataPointer ptr, boolean lazy) throws IOException {
 		loadHeader(ptr);
 
 		Point2i origin = location.regionToChunk();
@@ -252,7 +366,11 @@ public abstract class MCAFile<T extends Chunk> {
 			try {
 				chunks[i] = chunkConstructor.apply(chunkLocation);
 				chunks[i].setTimestamp(timestamps[i]);
-				chunks[i].load(ptr);
+				if (lazy) {
+					chunks[i].loadLazy(ptr);
+				} else {
+					chunks[i].load(ptr);
+				}
 			} catch (Exception ex) {
 				chunks[i] = null;
 				LOGGER.debug("failed to load chunk at {}", chunkLocation, ex);
@@ -261,6 +379,46 @@ public abstract class MCAFile<T extends Chunk> {
 		return offsets;
 	}
 
+	// decodes the chunks on all cores of the shared ChunkPool instead of only on the calling thread
+	public int[] loadParallel(DataPointer ptr) throws IOException {
+		loadHeader(ptr);
+
+		Point2i origin = location.regionToChunk();
+
+		// the pointer can't be shared between threads, so every chunk gets its own view on the data
+		DataPointer[] slices = new DataPointer[1024];
+		for (short i = 0; i < 1024; i++) {
+			chunks[i] = null;
+			if (offsets[i] == 0) {
+				continue;
+			}
+			try {
+				ptr.seek(offsets[i] * 4096L);
+				int length = ptr.readInt();
+				ptr.seek(offsets[i] * 4096L);
+				slices[i] = ptr.slice(length + 4);
+			} catch (ArrayIndexOutOfBoundsException ex) {
+				LOGGER.debug("failed to load chunk at {}", origin.add(new Point2i(i)), ex);
+			}
+		}
+
+		ChunkPool.forEachChunk(i -> {
+			if (slices[i] == null) {
+				return;
+			}
+			Point2i chunkLocation = origin.add(new Point2i(i));
+			try {
+				T chunk = chunkConstructor.apply(chunkLocation);
+				chunk.setTimestamp(timestamps[i]);
+				chunk.load(slices[i]);
+				chunks[i] = chunk;
+			} catch (Exception ex) {
+				LOGGER.debug("failed to load chunk at {}", chunkLocation, ex);
+			}
+		});
+		return offsets;
+	}
+
 	public void loadHeader(RandomAccessFile raf) throws IOException {
 		offsets = new int[1024];
 		sectors = new byte[1024];
@@ -279,7 +437,7 @@ public abstract class MCAFile<T extends Chunk> {
 		}
 	}
 
-	public void loadHeader(ByteArrayPointer ptr) throws IOException {
+	public void loadHeader(DataPointer ptr) throws IOException {
 		offsets = new int[1024];
 		sectors = new byte[1024];
 
@@ -347,7 +505,7 @@ public abstract class MCAFile<T extends Chunk> {
 		}
 	}
 
-	public void loadBorderChunks(ByteArrayPointer ptr) throws IOException {
+	public void loadBorderChunks(DataPointer ptr) throws IOException {
 		loadHeader(ptr);
 
 		// top row / bottom row
@@ -363,7 +521,7 @@ public abstract class MCAFile<T extends Chunk> {
 		}
 	}
 
-	private void loadChunk(ByteArrayPointer ptr, int index) throws IOException {
+	private void loadChunk(DataPointer ptr, int index) throws IOException {
 		try {
 			if (offsets[index] == 0) {
 				chunks[index] = null;
@@ -447,18 +605,25 @@ public abstract class MCAFile<T extends Chunk> {
 				Point2i destChunk = destination.location.regionToChunk().add(destX, destZ);
 
 				if (targetChunks == null || targetChunks.get(destIndex)) {
-					if (!sourceChunk.relocate(offset.sectionToBlock())) {
+					// without an offset there is nothing to relocate, which keeps lazily loaded chunks encoded.
+					// relocate also rejects chunks without a DataVersion, so that check still has to be done.
+					if (offset.getX() != 0 || offset.getY() != 0 || offset.getZ() != 0) {
+						if (!sourceChunk.relocate(offset.sectionToBlock())) {
+							continue;
+						}
+					} else if (sourceChunk.getDataVersion() <= 0) {
 						continue;
 					}
 
 					if (ranges != null) {
-						int sourceVersion = sourceChunk.getData().getIntOrDefault("DataVersion", 0);
+						CompoundTag sourceData = sourceChunk.getData();
+						int sourceVersion = sourceData == null ? 0 : sourceData.getIntOrDefault("DataVersion", 0);
 						if (sourceVersion == 0) {
 							continue;
 						}
 
 						int destinationVersion;
-						if (destinationChunk == null || destinationChunk.isEmpty()) {
+						if (destinationChunk == null || destinationChunk.getData() == null) {
 							destinationChunk = chunkCreator.apply(destChunk, sourceVersion);
 							destination.chunks[destIndex] = destinationChunk;
 						} else if (sourceVersion != (destinationVersion = destinationChunk.getData().getIntOrDefault("DataVersion", 0))) {
@@ -525,6 +690,11 @@ public abstract class MCAFile<T extends Chunk> {
 		return offsets[getChunkIndex(location)] != 0;
 	}
 
+	// whether the header has an entry for this chunk, also works when only the header has been loaded
+	public boolean hasChunk(int index) {
+		return offsets[index] != 0;
+	}
+
 	public void setChunkAt(Point2i location, T chunk) {
 		chunks[getChunkIndex(location)] = chunk;
 	}
@@ -0,0 +1,220 @@
+package net.querz.mcaselector.io.mca;
+
+import net.querz.nbt.CompoundTag;
+import net.querz.nbt.NumberTag;
+import net.querz.nbt.StringTag;
+import net.querz.nbt.Tag;
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// walks a binary nbt stream and only extracts the scalar values (numbers and strings) at specific paths.
+// everything else is skipped by length without creating any tags.
+// instances are immutable and can be shared between threads.
+public final class NBTFieldScanner {
+
+	private static final int MAX_PATHS = 64;
+	private static final byte COMPOUND = 10;
+
+	private final String[][] paths;
+	private final byte[][][] encodedPaths;
+
+	// paths are dot separated names of nested compound tags, e.g. "Level.InhabitedTime"
+	public NBTFieldScanner(String... paths) {
+		if (paths.length > MAX_PATHS) {
+			throw new IllegalArgumentException("too many paths: " + paths.length + " > " + MAX_PATHS);
+		}
+		this.paths = new String[paths.length][];
+		this.encodedPaths = new byte[paths.length][][];
+		for (int i = 0; i < paths.length; i++) {
+			this.paths[i] = paths[i].split("\\.");
+			encodedPaths[i] = new byte[this.paths[i].length][];
+			for (int j = 0; j < this.paths[i].length; j++) {
+				encodedPaths[i][j] = this.paths[i][j].getBytes(StandardCharsets.UTF_8);
+			}
+		}
+	}
+
+	public int size() {
+		return paths.length;
+	}
+
+	// reads a named root compound tag from the stream and returns the values of all paths in order.
+	// values are Byte, Short, Integer, Long, Float, Double or String, or null if a path is missing or not a scalar.
+	// stops reading as soon as all paths have been found.
+	public Object[] scan(DataInput in) throws IOException {
+		Object[] values = new Object[paths.length];
+		byte id = in.readByte();
+		if (id != COMPOUND) {
+			throw new IOException("unexpected root tag type " + id + ", expected " + Tag.Type.COMPOUND);
+		}
+		skipFully(in, in.readUnsignedShort());
+		State state = new State(values);
+		scanCompound(in, 0, paths.length == MAX_PATHS ? -1L : (1L << paths.length) - 1, state);
+		return values;
+	}
+
+	// resolves the same paths against an already parsed tag
+	public Object[] resolve(CompoundTag root) {
+		Object[] values = new Object[paths.length];
+		for (int i = 0; i < paths.length; i++) {
+			Tag current = root;
+			for (String name : paths[i]) {
+				if (!(current instanceof CompoundTag c) || (current = c.get(name)) == null) {
+					current = null;
+					break;
+				}
+			}
+			if (current instanceof NumberTag number) {
+				values[i] = number.asNumber();
+			} else if (current instanceof StringTag string) {
+				values[i] = string.getValue();
+			}
+		}
+		return values;
+	}
+
+	private static class State {
+
+		final Object[] values;
+		int missing;
+		byte[] name = new byte[64];
+
+		State(Object[] values) {
+			this.values = values;
+			this.missing = values.length;
+		}
+	}
+
+	// returns false if all values have been found and scanning can stop
+	private boolean scanCompound(DataInput in, int depth, long candidates, State state) throws IOException {
+		byte id;
+		while ((id = in.readByte()) != 0) {
+			int nameLength = in.readUnsignedShort();
+			if (state.name.length < nameLength) {
+				state.name = new byte[nameLength];
+			}
+			in.readFully(state.name, 0, nameLength);
+
+			long leaves = 0, inner = 0;
+			for (long c = candidates; c != 0; c &= c - 1) {
+				int i = Long.numberOfTrailingZeros(c);
+				byte[][] path = encodedPaths[i];
+				if (nameEquals(path[depth], state.name, nameLength)) {
+					if (path.length == depth + 1) {
+						leaves |= 1L << i;
+					} else {
+						inner |= 1L << i;
+					}
+				}
+			}
+
+			if (inner != 0 && id == COMPOUND) {
+				if (!scanCompound(in, depth + 1, inner, state)) {
+					return false;
+				}
+			} else if (leaves != 0 && isScalar(id)) {
+				Object value = readScalar(in, id);
+				for (long l = leaves; l != 0; l &= l - 1) {
+					int i = Long.numberOfTrailingZeros(l);
+					if (state.values[i] == null) {
+						state.values[i] = value;
+						state.missing--;
+					}
+				}
+				if (state.missing == 0) {
+					return false;
+				}
+			} else {
+				skip(in, id);
+			}
+		}
+		return true;
+	}
+
+	private static boolean nameEquals(byte[] expected, byte[] name, int length) {
+		if (expected.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (expected[i] != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isScalar(byte id) {
+		return id >= 1 && id <= 6 || id == 8;
+	}
+
+	private static Object readScalar(DataInput in, byte id) throws IOException {
+		return switch (id) {
+			case 1 -> in.readByte();
+			case 2 -> in.readShort();
+			case 3 -> in.readInt();
+			case 4 -> in.readLong();
+			case 5 -> in.readFloat();
+			case 6 -> in.readDouble();
+			case 8 -> in.readUTF();
+			default -> throw new IOException("tag type " + id + " is not a scalar");
+		};
+	}
+
+	// returns the payload size of fixed size tags or -1
+	private static int fixedSize(byte id) {
+		return switch (id) {
+			case 1 -> 1;
+			case 2 -> 2;
+			case 3, 5 -> 4;
+			case 4, 6 -> 8;
+			default -> -1;
+		};
+	}
+
+	private static void skip(DataInput in, byte id) throws IOException {
+		int size = fixedSize(id);
+		if (size > 0) {
+			skipFully(in, size);
+			return;
+		}
+		switch (id) {
+			case 7 -> skipFully(in, in.readInt());
+			case 8 -> skipFully(in, in.readUnsignedShort());
+			case 9 -> {
+				byte elementID = in.readByte();
+				int length = in.readInt();
+				int elementSize = fixedSize(elementID);
+				if (elementSize > 0) {
+					skipFully(in, (long) length * elementSize);
+				} else {
+					for (int i = 0; i < length; i++) {
+						skip(in, elementID);
+					}
+				}
+			}
+			case 10 -> {
+				byte childID;
+				while ((childID = in.readByte()) != 0) {
+					skipFully(in, in.readUnsignedShort());
+					skip(in, childID);
+				}
+			}
+			case 11 -> skipFully(in, (long) in.readInt() * 4);
+			case 12 -> skipFully(in, (long) in.readInt() * 8);
+			default -> throw new IOException("invalid tag type " + id);
+		}
+	}
+
+	private static void skipFully(DataInput in, long n) throws IOException {
+		while (n > 0) {
+			int skipped = in.skipBytes((int) Math.min(n, Integer.MAX_VALUE));
+			if (skipped <= 0) {
+				// skipBytes is allowed to skip nothing, force progress or an EOFException
+				in.readByte();
+				skipped = 1;
+			}
+			n -= skipped;
+		}
+	}
+}
@@ -1,8 +1,10 @@
 package net.querz.mcaselector.io.mca;
 
 import net.querz.mcaselector.changer.Field;
+import net.querz.mcaselector.filter.DataTier;
 import net.querz.mcaselector.filter.Filter;
 import net.querz.mcaselector.io.ByteArrayPointer;
+import net.querz.mcaselector.io.DataPointer;
 import net.querz.mcaselector.io.FileHelper;
 import net.querz.mcaselector.io.RegionDirectories;
 import net.querz.mcaselector.point.Point2i;
@@ -16,6 +18,7 @@ import org.apache.logging.log4j.Logger;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 // holds data for chunks, poi and entities
 public class Region {
@@ -31,15 +34,51 @@ public class Region {
 	private Point2i location;
 
 	public static Region loadRegion(RegionDirectories dirs, byte[] regionData, byte[] poiData, byte[] entitiesData) throws IOException {
+		return loadRegion(dirs,
+				regionData == null ? null : new ByteArrayPointer(regionData),
+				poiData == null ? null : new ByteArrayPointer(poiData),
+				entitiesData == null ? null : new ByteArrayPointer(entitiesData));
+	}
+
+	public static Region loadRegion(RegionDirectories dirs, DataPointer regionData, DataPointer poiData, DataPointer entitiesData) throws IOException {
+		return loadRegion(dirs, regionData, poiData, entitiesData, false);
+	}
+
+	public static Region loadRegionLazy(RegionDirectories dirs, byte[] regionData, byte[] poiData, byte[] entitiesData) throws IOException {
+		return loadRegionLazy(dirs,
+				regionData == null ? null : new ByteArrayPointer(regionData),
+				poiData == null ? null : new ByteArrayPointer(poiData),
+				entitiesData == null ? null : new ByteArrayPointer(entitiesData));
+	}
+
+	// chunks are only decompressed and parsed when their data is accessed,
+	// so chunks that are skipped e.g. because they are not selected cost almost nothing
+	public static Region loadRegionLazy(RegionDirectories dirs, DataPointer regionData, DataPointer poiData, DataPointer entitiesData) throws IOException {
+		return loadRegion(dirs, regionData, poiData, entitiesData, true);
+	}
+
+	private static Region loadRegion(RegionDirectories dirs, DataPointer regionData, DataPointer poiData, DataPointer entitiesData, boolean lazy) throws IOException {
 		Region r = new Region();
 		if (dirs.getRegion() != null && dirs.getRegion().length() > FileHelper.HEADER_SIZE && regionData != null) {
-			r.loadRegion(dirs.getRegion(), new ByteArrayPointer(regionData));
+			r.region = new RegionMCAFile(dirs.getRegion());
 		}
 		if (dirs.getPoi() != null && poiData != null) {
-			r.loadPoi(dirs.getPoi(), new ByteArrayPointer(poiData));
+			r.poi = new PoiMCAFile(dirs.getPoi());
 		}
 		if (dirs.getEntities() != null && entitiesData != null) {
-			r.loadEntities(dirs.getEntities(), new ByteArrayPointer(entitiesData));
+			r.entities = new EntitiesMCAFile(dirs.getEntities());
+		}
+
+		if (!lazy && ChunkPool.shouldFanOut()) {
+			// decode region, poi and entities at the same time, each of them across all cores
+			ChunkPool.invokeAll(
+				() -> loadParallel(r.region, regionData),
+				() -> loadParallel(r.poi, poiData),
+				() -> loadParallel(r.entities, entitiesData));
+		} else {
+			load(r.region, regionData, lazy);
+			load(r.poi, poiData, lazy);
+			load(r.entities, entitiesData, lazy);
 		}
 		r.location = dirs.getLocation();
 		r.directories = dirs;
@@ -62,6 +101,23 @@ public class Region {
 		return r;
 	}
 
+	private static void loadParallel(MCAFile<?> mcaFile, DataPointer ptr) throws IOException {
+		if (mcaFile != null) {
+			mcaFile.loadParallel(ptr);
+		}
+	}
+
+	private static void load(MCAFile<?> mcaFile, DataPointer ptr, boolean lazy) throws IOException {
+		if (mcaFile == null) {
+			return;
+		}
+		if (lazy) {
+			mcaFile.loadLazy(ptr);
+		} else {
+			mcaFile.load(ptr);
+		}
+	}
+
 	public static Region loadRegionHeaders(RegionDirectories dirs, byte[] regionHeader, byte[] poiHeader, byte[] entitiesHeader) throws IOException {
 		Region r = new Region();
 		if (dirs.getRegion() != null && regionHeader != null) {
@@ -76,6 +132,7 @@ public class Region {
 			r.entities = new EntitiesMCAFile(dirs.getEntities());
 			r.entities.loadHeader(new ByteArrayPointer(entitiesHeader));
 		}
+		r.location = dirs.getLocation();
 		r.directories = dirs;
 		return r;
 	}
@@ -111,7 +168,7 @@ public class Region {
 		region.load();
 	}
 
-	public void loadRegion(File src, ByteArrayPointer ptr) throws IOException {
+	public void loadRegion(File src, DataPointer ptr) throws IOException {
 		region = new RegionMCAFile(src);
 		region.load(ptr);
 	}
@@ -121,7 +178,7 @@ public class Region {
 		poi.load();
 	}
 
-	public void loadPoi(File src, ByteArrayPointer ptr) throws IOException {
+	public void loadPoi(File src, DataPointer ptr) throws IOException {
 		poi = new PoiMCAFile(src);
 		poi.load(ptr);
 	}
@@ -131,7 +188,7 @@ public class Region {
 		entities.load();
 	}
 
-	public void loadEntities(File src, ByteArrayPointer ptr) throws IOException {
+	public void loadEntities(File src, DataPointer ptr) throws IOException {
 		entities = new EntitiesMCAFile(src);
 		entities.load(ptr);
 	}
@@ -323,9 +380,30 @@ public class Region {
 		}
 	}
 
-	public boolean deleteChunks(Filter<?> filter, Selection selection) {
-		boolean deleted = false;
+	public void deleteChunksInPlace(ChunkSet selection) throws IOException {
+		if (region != null) {
+			region.deleteChunksInPlace(selection);
+		}
+		if (poi != null) {
+			poi.deleteChunksInPlace(selection);
+		}
+		if (entities != null) {
+			entities.deleteChunksInPlace(selection);
+		}
+	}
+
+	// returns the indices of all deleted chunks
+	public ChunkSet deleteChunks(Filter<?> filter, Selection selection) {
+		return deleteChunks(filter, selection, null);
+	}
+
+	// only evaluates the filter for the candidates, or for all chunks if candidates is null
+	public ChunkSet deleteChunks(Filter<?> filter, Selection selection, ChunkSet candidates) {
+		ChunkSet deleted = new ChunkSet();
 		for (int i = 0; i < 1024; i++) {
+			if (candidates != null && !candidates.get(i)) {
+				continue;
+			}
 			RegionChunk region = this.region.getChunk(i);
 			EntitiesChunk entities = this.entities == null ? null : this.entities.getChunk(i);
 			PoiChunk poi = this.poi == null ? null : this.poi.getChunk(i);
@@ -343,13 +421,19 @@ public class Region {
 
 			if ((selection == null || selection.isChunkSelected(location)) && filter.matches(filterData)) {
 				deleteChunkIndex(i);
-				deleted = true;
+				deleted.set(i);
 			}
 		}
 		return deleted;
 	}
 
 	public boolean keepChunks(Filter<?> filter, Selection selection) {
+		return keepChunks(filter, selection, null, null);
+	}
+
+	// keeps the chunks in matches without evaluating the filter and only evaluates the filter for the candidates.
+	// all other chunks are deleted. if candidates is null, the filter is evaluated for all chunks.
+	public boolean keepChunks(Filter<?> filter, Selection selection, ChunkSet matches, ChunkSet candidates) {
 		boolean deleted = false;
 		for (int i = 0; i < 1024; i++) {
 			RegionChunk region = this.region.getChunk(i);
@@ -365,6 +449,14 @@ public class Region {
 				continue;
 			}
 
+			if (candidates != null && !candidates.get(i)) {
+				if (matches == null || !matches.get(i)) {
+					deleteChunkIndex(i);
+					deleted = true;
+				}
+				continue;
+			}
+
 			ChunkData filterData = new ChunkData(region, poi, entities, selection != null && selection.isChunkSelected(location));
 
 			// keep chunk if filter AND selection applies
@@ -390,9 +482,18 @@ public class Region {
 	}
 
 	public ChunkSet getFilteredChunks(Filter<?> filter, Selection selection) {
-		ChunkSet chunks = new ChunkSet();
+		return getFilteredChunks(filter, selection, null);
+	}
 
-		for (int i = 0; i < 1024; i++) {
+	// only evaluates the filter for the candidates, or for all chunks if candidates is null
+	public ChunkSet getFilteredChunks(Filter<?> filter, Selection selection, ChunkSet candidates) {
+		ChunkField[] fields = filter.getRequiredFields();
+
+		boolean[] matches = new boolean[1024];
+		IntConsumer matcher = i -> {
+			if (candidates != null && !candidates.get(i)) {
+				return;
+			}
 			RegionChunk regionChunk = this.region == null ? null : this.region.getChunk(i);
 			EntitiesChunk entitiesChunk = this.entities == null ? null : this.entities.getChunk(i);
 			PoiChunk poiChunk = this.poi == null ? null : this.poi.getChunk(i);
@@ -402,16 +503,74 @@ public class Region {
 			ChunkData filterData = new ChunkData(regionChunk, poiChunk, entitiesChunk, selection != null && selection.isChunkSelected(chunkLocation));
 
 			try {
-				if ((selection == null || selection.isChunkSelected(chunkLocation)) && filter.matches(filterData)) {
-					chunks.set(i);
+				if (selection != null && !selection.isChunkSelected(chunkLocation)) {
+					return;
+				}
+				if (fields != null && regionChunk != null) {
+					// read all scalar values the filter needs in a single pass
+					regionChunk.prefetchFields(fields);
 				}
+				matches[i] = filter.matches(filterData);
 			} catch (Exception ex) {
 				LOGGER.warn("failed to select chunk {}: {}", chunkLocation, ex.getMessage());
 			}
+		};
+
+		if (ChunkPool.shouldFanOut()) {
+			ChunkPool.forEachChunk(matcher);
+		} else {
+			for (int i = 0; i < 1024; i++) {
+				matcher.accept(i);
+			}
+		}
+
+		ChunkSet chunks = new ChunkSet();
+		for (int i = 0; i < 1024; i++) {
+			if (matches[i]) {
+				chunks.set(i);
+			}
 		}
 		return chunks;
 	}
 
+	// evaluates the filter with only the headers loaded, see loadRegionHeaders().
+	// chunks that match regardless of their data are added to matches,
+	// chunks for which the filter needs to look at their data are added to candidates.
+	// chunks outside the mask are skipped, the mask can be null to evaluate all chunks.
+	public void getFilteredChunksFromHeaders(Filter<?> filter, Selection selection, ChunkSet mask, ChunkSet matches, ChunkSet candidates) {
+		Point2i origin = location.regionToChunk();
+		for (int i = 0; i < 1024; i++) {
+			if (mask != null && !mask.get(i)) {
+				continue;
+			}
+			Point2i chunkLocation = origin.add(new Point2i(i));
+			if (selection != null && !selection.isChunkSelected(chunkLocation)) {
+				continue;
+			}
+
+			// only knows its location and timestamp
+			RegionChunk regionChunk = null;
+			if (region != null && region.hasChunk(i)) {
+				regionChunk = new RegionChunk(chunkLocation);
+				regionChunk.setTimestamp(region.getTimestamp(i));
+			}
+
+			ChunkData filterData = new ChunkData(regionChunk, null, null, selection != null);
+
+			try {
+				Boolean result = filter.matches(filterData, DataTier.HEADER);
+				if (result == null) {
+					candidates.set(i);
+				} else if (result) {
+					matches.set(i);
+				}
+			} catch (Exception ex) {
+				LOGGER.debug("failed to evaluate header of chunk {}: {}", chunkLocation, ex.getMessage());
+				candidates.set(i);
+			}
+		}
+	}
+
 	public void applyFieldChanges(List<Field<?>> fields, boolean force, Selection selection) {
 		Timer t = new Timer();
 		boolean selected = false;
@@ -61,7 +61,7 @@ public class RegionMCAFile extends MCAFile<RegionChunk> implements Cloneable {
 
 					// skip all chunks that are empty
 					RegionChunk destinationChunk = destination.chunks[destIndex];
-					if (destinationChunk == null || destinationChunk.isEmpty()) {
+					if (destinationChunk == null || destinationChunk.getData() == null) {
 						continue;
 					}
 
@@ -82,13 +82,13 @@ public class RegionMCAFile extends MCAFile<RegionChunk> implements Cloneable {
 
 		for (int index = 0; index < 1024; index++) {
 			RegionChunk chunk = getChunk(index);
-			if (chunk == null || chunk.data == null) {
+			if (chunk == null || chunk.getData() == null) {
 				continue;
 			}
 
 			try {
-				ChunkRenderer chunkRenderer = VersionController.getChunkRenderer(chunk.data.getIntOrDefault("DataVersion", 0));
-				CompoundTag minData = chunkRenderer.minimizeChunk(chunk.data);
+				ChunkRenderer chunkRenderer = VersionController.getChunkRenderer(chunk.getData().getIntOrDefault("DataVersion", 0));
+				CompoundTag minData = chunkRenderer.minimizeChunk(chunk.getData());
 
 				RegionChunk minChunk = new RegionChunk(chunk.absoluteLocation.clone());
 				minChunk.data = minData;
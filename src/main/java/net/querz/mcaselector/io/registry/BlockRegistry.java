@@ -0,0 +1,232 @@
+package net.querz.mcaselector.io.registry;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+// assigns an int id to every block name, so sets of block names can be stored and compared as bitsets.
+// all vanilla blocks have an id from the start, custom block names get an id when they're first used in a query.
+// block names read from chunks are only looked up, so they don't fill the registry.
+public final class BlockRegistry {
+
+	private static final Logger LOGGER = LogManager.getLogger(BlockRegistry.class);
+
+	private BlockRegistry() {}
+
+	// replaced when a name is added, so lookups don't have to be synchronized
+	private static volatile Object2IntOpenHashMap<String> ids;
+	private static volatile String[] names;
+
+	static {
+		Object2IntOpenHashMap<String> i = new Object2IntOpenHashMap<>();
+		i.defaultReturnValue(-1);
+		List<String> n = new ArrayList<>();
+		try (BufferedReader bis = new BufferedReader(
+				new InputStreamReader(Objects.requireNonNull(BlockRegistry.class.getClassLoader().getResourceAsStream("mapping/all_block_names.txt"))))) {
+			String line;
+			while ((line = bis.readLine()) != null) {
+				String name = "minecraft:" + line;
+				if (!i.containsKey(name)) {
+					i.put(name, n.size());
+					n.add(name);
+				}
+			}
+		} catch (IOException ex) {
+			LOGGER.error("error reading mapping/all_block_names.txt", ex);
+		}
+		ids = i;
+		names = n.toArray(new String[0]);
+	}
+
+	// returns the id of a block name, or -1 if it doesn't have one
+	public static int getIdIfPresent(String name) {
+		return ids.getInt(name);
+	}
+
+	// returns the id of a block name and adds it to the registry if it doesn't have one yet
+	public static int getId(String name) {
+		int id = ids.getInt(name);
+		if (id != -1) {
+			return id;
+		}
+		synchronized (BlockRegistry.class) {
+			id = ids.getInt(name);
+			if (id != -1) {
+				return id;
+			}
+			Object2IntOpenHashMap<String> i = new Object2IntOpenHashMap<>(ids);
+			i.defaultReturnValue(-1);
+			id = names.length;
+			i.put(name, id);
+			String[] n = Arrays.copyOf(names, id + 1);
+			n[id] = name;
+			names = n;
+			ids = i;
+			LOGGER.debug("added custom block {} with id {}", name, id);
+			return id;
+		}
+	}
+
+	public static String getName(int id) {
+		String[] n = names;
+		return id >= 0 && id < n.length ? n[id] : null;
+	}
+
+	public static int size() {
+		return names.length;
+	}
+
+	// a set of block ids. also remembers if a block without an id was added,
+	// because such a block can't be part of any query.
+	public static class BlockSet {
+
+		private long[] words;
+		private int size;
+		private boolean unknown;
+
+		public BlockSet() {
+			words = new long[(BlockRegistry.size() + 63) >> 6];
+		}
+
+		public static BlockSet of(Collection<String> names) {
+			BlockSet set = new BlockSet();
+			for (String name : names) {
+				set.add(getId(name));
+			}
+			return set;
+		}
+
+		public void add(int id) {
+			int w = id >> 6;
+			if (w >= words.length) {
+				words = Arrays.copyOf(words, Math.max(w + 1, words.length * 2));
+			}
+			long bit = 1L << id;
+			if ((words[w] & bit) == 0) {
+				words[w] |= bit;
+				size++;
+			}
+		}
+
+		// adds a block name that has been read from a chunk
+		public void add(String name) {
+			int id = getIdIfPresent(name);
+			if (id == -1) {
+				unknown = true;
+			} else {
+				add(id);
+			}
+		}
+
+		public void addAll(BlockSet other) {
+			if (other.words.length > words.length) {
+				words = Arrays.copyOf(words, other.words.length);
+			}
+			int s = 0;
+			for (int i = 0; i < words.length; i++) {
+				if (i < other.words.length) {
+					words[i] |= other.words[i];
+				}
+				s += Long.bitCount(words[i]);
+			}
+			size = s;
+			unknown |= other.unknown;
+		}
+
+		public void clear() {
+			Arrays.fill(words, 0);
+			size = 0;
+			unknown = false;
+		}
+
+		public boolean contains(int id) {
+			int w = id >> 6;
+			return w < words.length && (words[w] & (1L << id)) != 0;
+		}
+
+		// true if every block of the other set is in this set
+		public boolean containsAll(BlockSet other) {
+			if (other.unknown && !unknown) {
+				return false;
+			}
+			for (int i = 0; i < other.words.length; i++) {
+				long w = i < words.length ? words[i] : 0;
+				if ((other.words[i] & ~w) != 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// true if this set and the other set have at least one block id in common
+		public boolean intersects(BlockSet other) {
+			int n = Math.min(words.length, other.words.length);
+			for (int i = 0; i < n; i++) {
+				if ((words[i] & other.words[i]) != 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public boolean hasUnknown() {
+			return unknown;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public List<String> getNames() {
+			List<String> result = new ArrayList<>(size);
+			for (int i = 0; i < words.length; i++) {
+				long w = words[i];
+				while (w != 0) {
+					result.add(getName((i << 6) + Long.numberOfTrailingZeros(w)));
+					w &= w - 1;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof BlockSet other) || size != other.size || unknown != other.unknown) {
+				return false;
+			}
+			int n = Math.max(words.length, other.words.length);
+			for (int i = 0; i < n; i++) {
+				long a = i < words.length ? words[i] : 0;
+				long b = i < other.words.length ? other.words[i] : 0;
+				if (a != b) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			int h = Boolean.hashCode(unknown);
+			for (int i = 0; i < words.length; i++) {
+				if (words[i] != 0) {
+					h = 31 * h + Long.hashCode(words[i]) + i;
+				}
+			}
+			return h;
+		}
+
+		@Override
+		public String toString() {
+			return getNames() + (unknown ? " + unknown" : "");
+		}
+	}
+}
@@ -2,6 +2,7 @@ package net.querz.mcaselector.overlay;
 
 import com.google.gson.JsonObject;
 import net.querz.mcaselector.io.mca.ChunkData;
+import net.querz.mcaselector.io.mca.ChunkField;
 import java.util.Arrays;
 import java.util.UUID;
 
@@ -139,6 +140,11 @@ public abstract class Overlay implements Cloneable {
 
 	public abstract int parseValue(ChunkData chunkData);
 
+	// returns the scalar chunk fields this overlay reads, or null if it needs the entire chunk data
+	public ChunkField[] getRequiredFields() {
+		return null;
+	}
+
 	public abstract String name();
 
 	public abstract boolean setMin(String raw);
@@ -1,6 +1,7 @@
 package net.querz.mcaselector.overlay.overlays;
 
 import net.querz.mcaselector.io.mca.ChunkData;
+import net.querz.mcaselector.io.mca.ChunkField;
 import net.querz.mcaselector.overlay.Overlay;
 import net.querz.mcaselector.overlay.OverlayType;
 
@@ -12,10 +13,15 @@ public class DataVersionOverlay extends Overlay {
 
 	@Override
 	public int parseValue(ChunkData chunkData) {
-		if (chunkData.region() == null || chunkData.region().getData() == null) {
+		if (chunkData.region() == null || chunkData.region().isEmpty()) {
 			return 0;
 		}
-		return chunkData.region().getData().getIntOrDefault("DataVersion", 0);
+		return chunkData.region().getField(ChunkField.DATA_VERSION) instanceof Number n ? n.intValue() : 0;
+	}
+
+	@Override
+	public ChunkField[] getRequiredFields() {
+		return new ChunkField[]{ChunkField.DATA_VERSION};
 	}
 
 	@Override
@@ -1,12 +1,10 @@
 package net.querz.mcaselector.overlay.overlays;
 
 import net.querz.mcaselector.io.mca.ChunkData;
+import net.querz.mcaselector.io.mca.ChunkField;
 import net.querz.mcaselector.overlay.Overlay;
 import net.querz.mcaselector.text.TextHelper;
 import net.querz.mcaselector.overlay.OverlayType;
-import net.querz.mcaselector.version.ChunkFilter;
-import net.querz.mcaselector.version.VersionController;
-import net.querz.nbt.LongTag;
 
 public class InhabitedTimeOverlay extends Overlay {
 
@@ -21,9 +19,15 @@ public class InhabitedTimeOverlay extends Overlay {
 
 	@Override
 	public int parseValue(ChunkData chunkData) {
-		ChunkFilter chunkFilter = VersionController.getChunkFilter(chunkData.region().getData().getIntOrDefault("DataVersion", 0));
-		LongTag tag = chunkFilter.getInhabitedTime(chunkData.region().getData());
-		return tag == null ? 0 : tag.asInt();
+		if (chunkData.region() == null || chunkData.region().isEmpty()) {
+			return 0;
+		}
+		return chunkData.region().getField(ChunkField.INHABITED_TIME) instanceof Number n ? n.intValue() : 0;
+	}
+
+	@Override
+	public ChunkField[] getRequiredFields() {
+		return new ChunkField[]{ChunkField.INHABITED_TIME};
 	}
 
 	@Override
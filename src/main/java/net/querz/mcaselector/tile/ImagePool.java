@@ -7,6 +7,7 @@ import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import javafx.scene.image.Image;
 import net.querz.mcaselector.config.Config;
 import net.querz.mcaselector.config.ConfigProvider;
+import net.querz.mcaselector.io.CacheHelper;
 import net.querz.mcaselector.io.FileHelper;
 import net.querz.mcaselector.io.ImageHelper;
 import net.querz.mcaselector.io.db.CacheDBController;
@@ -102,7 +103,7 @@ public final class ImagePool {
 		}
 
 		// image in disk cache?
-		File diskCacheImageFile = FileHelper.createPNGFilePath(ConfigProvider.WORLD.getCacheDir(), zoomLevel, tile.location);
+		File diskCacheImageFile = CacheHelper.getCacheFile(zoomLevel, tile.location);
 		if (diskCacheImageFile.exists()) {
 			CachedImageLoadJob.setLoading(tile, true);
 			CachedImageLoadJob.load(tile, diskCacheImageFile, zoomLevel, zoomLevel, img -> {
@@ -122,7 +123,7 @@ public final class ImagePool {
 				continue;
 			}
 
-			diskCacheImageFile = FileHelper.createPNGFilePath(ConfigProvider.WORLD.getCacheDir(), zl, tile.location);
+			diskCacheImageFile = CacheHelper.getCacheFile(zl, tile.location);
 			if (diskCacheImageFile.exists()) {
 				if (zl < zoomLevel) {
 					// image is larger than needed
@@ -162,11 +163,7 @@ public final class ImagePool {
 			RegionImageGenerator.setLoading(tile, false);
 			push(zoomLevel, tile.location, img);
 			tileMap.draw();
-			try {
-				cache.setFileTime(tile.location, readLastModifiedDate(tile.location));
-			} catch (SQLException e) {
-				e.printStackTrace();
-			}
+			cache.setFileTime(tile.location, readLastModifiedDate(tile.location));
 		}, zoomLevel, null, true, () -> tileMap.getTilePriority(tile.getLocation()));
 	}
 
@@ -296,8 +293,7 @@ public final class ImagePool {
 		discardImage(region);
 		RegionImageGenerator.uncacheRegionMCAFile(region);
 		for (int i = 1; i <= Config.MAX_ZOOM_LEVEL; i *= 2) {
-			File png = FileHelper.createPNGFilePath(ConfigProvider.WORLD.getCacheDir(), i, region);
-			png.delete();
+			CacheHelper.deleteCacheFiles(ConfigProvider.WORLD.getCacheDir(i), region);
 		}
 	}
 }
@@ -10,6 +10,7 @@ import net.querz.mcaselector.config.ConfigProvider;
 import net.querz.mcaselector.io.FileHelper;
 import net.querz.mcaselector.io.mca.Chunk;
 import net.querz.mcaselector.io.mca.RegionMCAFile;
+import net.querz.mcaselector.math.Bits;
 import net.querz.mcaselector.math.MathUtil;
 import net.querz.mcaselector.point.Point2f;
 import net.querz.mcaselector.point.Point2i;
@@ -20,6 +21,7 @@ import net.querz.mcaselector.io.ImageHelper;
 import net.querz.mcaselector.version.VersionController;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import java.util.Arrays;
 
 public final class TileImage {
 
@@ -27,6 +29,9 @@ public final class TileImage {
 
 	private static final int[] corruptedChunkOverlay = new int[256];
 
+	// the vector api is an incubator module and only available if the jvm was started with --add-modules jdk.incubator.vector
+	private static final boolean VECTOR_SHADE = isVectorShadeAvailable();
+
 	static {
 		Image corrupted = FileHelper.getIconFromResources("img/corrupted");
 		PixelReader pr = corrupted.getPixelReader();
@@ -35,6 +40,19 @@ public final class TileImage {
 
 	private TileImage() {}
 
+	private static boolean isVectorShadeAvailable() {
+		if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+			LOGGER.debug("jdk.incubator.vector is not available, using scalar shading");
+			return false;
+		}
+		try {
+			return VectorShade.isAvailable();
+		} catch (LinkageError ex) {
+			LOGGER.warn("failed to initialize vectorized shading, using scalar shading", ex);
+			return false;
+		}
+	}
+
 	public static void draw(GraphicsContext ctx, Tile tile, float scale, Point2f offset, Selection selection, boolean overlay, boolean showNonexistentRegions) {
 		if (tile == null || tile.image == null) {
 			if (showNonexistentRegions) {
@@ -92,15 +110,19 @@ public final class TileImage {
 	}
 
 	public static Image generateImage(RegionMCAFile mcaFile, int scale) {
+		return generateImages(mcaFile, scale, scale)[0];
+	}
 
-		int size = Tile.SIZE / scale;
-		int chunkSize = Tile.CHUNK_SIZE / scale;
-		int pixels = Tile.PIXELS / (scale * scale);
+	// generates the images of all scales from minScale to maxScale (both powers of 2) with a single pass over all chunks.
+	// renderers only draw every scale-th block, so the unshaded buffers of higher scales can be sampled
+	// from the ones of minScale, which results in the same images as rendering each scale individually.
+	public static Image[] generateImages(RegionMCAFile mcaFile, int minScale, int maxScale) {
+		Image[] images = new Image[Bits.lsbPosition(maxScale / minScale) + 1];
 
-		try {
+		int chunkSize = Tile.CHUNK_SIZE / minScale;
+		int pixels = Tile.PIXELS / (minScale * minScale);
 
-			WritableImage finalImage = new WritableImage(size, size);
-			PixelWriter writer = finalImage.getPixelWriter();
+		try {
 			int[] pixelBuffer = new int[pixels];
 			int[] waterPixels = ConfigProvider.WORLD.getShade() && ConfigProvider.WORLD.getShadeWater() && !ConfigProvider.WORLD.getRenderCaves() ? new int[pixels] : null;
 			short[] terrainHeights = new short[pixels];
@@ -116,23 +138,79 @@ public final class TileImage {
 						continue;
 					}
 
-					drawChunkImage(data, cx * chunkSize, cz * chunkSize, scale, pixelBuffer, waterPixels, terrainHeights, waterHeights);
+					drawChunkImage(data, cx * chunkSize, cz * chunkSize, minScale, pixelBuffer, waterPixels, terrainHeights, waterHeights);
 				}
 			}
 
-			if (ConfigProvider.WORLD.getRenderCaves()) {
-				flatShade(pixelBuffer, terrainHeights, scale);
-			} else if (ConfigProvider.WORLD.getShade() && !ConfigProvider.WORLD.getRenderLayerOnly()) {
-				shade(pixelBuffer, waterPixels, terrainHeights, waterHeights, scale);
+			// shading modifies the buffers, so the higher scales have to be sampled first
+			for (int i = images.length - 1; i >= 0; i--) {
+				int scale = minScale << i;
+				if (i == 0) {
+					images[i] = createImage(pixelBuffer, waterPixels, terrainHeights, waterHeights, scale);
+				} else {
+					int srcSize = Tile.SIZE / minScale;
+					int step = 1 << i;
+					images[i] = createImage(
+						sample(pixelBuffer, srcSize, step),
+						sample(waterPixels, srcSize, step),
+						sample(terrainHeights, srcSize, step),
+						sample(waterHeights, srcSize, step),
+						scale);
+				}
 			}
-
-			writer.setPixels(0, 0, size, size, PixelFormat.getIntArgbPreInstance(), pixelBuffer,  0, size);
-
-			return finalImage;
 		} catch (Exception ex) {
 			LOGGER.warn("failed to create image for MCAFile {}", mcaFile.getFile().getName(), ex);
+			Arrays.fill(images, null);
+		}
+		return images;
+	}
+
+	private static Image createImage(int[] pixelBuffer, int[] waterPixels, short[] terrainHeights, short[] waterHeights, int scale) {
+		int size = Tile.SIZE / scale;
+
+		WritableImage finalImage = new WritableImage(size, size);
+		PixelWriter writer = finalImage.getPixelWriter();
+
+		if (ConfigProvider.WORLD.getRenderCaves()) {
+			flatShade(pixelBuffer, terrainHeights, scale);
+		} else if (ConfigProvider.WORLD.getShade() && !ConfigProvider.WORLD.getRenderLayerOnly()) {
+			shade(pixelBuffer, waterPixels, terrainHeights, waterHeights, scale);
+		}
+
+		writer.setPixels(0, 0, size, size, PixelFormat.getIntArgbPreInstance(), pixelBuffer,  0, size);
+
+		return finalImage;
+	}
+
+	// takes every step-th pixel in both directions
+	private static int[] sample(int[] src, int srcSize, int step) {
+		if (src == null) {
+			return null;
+		}
+		int size = srcSize / step;
+		int[] dst = new int[size * size];
+		for (int z = 0, i = 0; z < size; z++) {
+			int row = z * step * srcSize;
+			for (int x = 0; x < size; x++, i++) {
+				dst[i] = src[row + x * step];
+			}
+		}
+		return dst;
+	}
+
+	private static short[] sample(short[] src, int srcSize, int step) {
+		if (src == null) {
+			return null;
+		}
+		int size = srcSize / step;
+		short[] dst = new short[size * size];
+		for (int z = 0, i = 0; z < size; z++) {
+			int row = z * step * srcSize;
+			for (int x = 0; x < size; x++, i++) {
+				dst[i] = src[row + x * step];
+			}
 		}
-		return null;
+		return dst;
 	}
 
 	private static void drawChunkImage(Chunk chunkData, int x, int z, int scale, int[] pixelBuffer, int[] waterPixels, short[] terrainHeights, short[] waterHeights) {
@@ -190,15 +268,23 @@ public final class TileImage {
 
 	private static void flatShade(int[] pixelBuffer, short[] terrainHeights, int scale) {
 		int size = Tile.SIZE / scale;
+		if (VECTOR_SHADE) {
+			VectorShade.flatShade(pixelBuffer, terrainHeights, size);
+			return;
+		}
 		int index = 0;
 		for (int z = 0; z < size; z++) {
 			for (int x = 0; x < size; x++, index++) {
-				int altitudeShade = MathUtil.clamp(16 * terrainHeights[index] / 64, -50, 50);
-				pixelBuffer[index] = Color.shade(pixelBuffer[index], altitudeShade * 4);
+				flatShadePixel(pixelBuffer, terrainHeights, index);
 			}
 		}
 	}
 
+	static void flatShadePixel(int[] pixelBuffer, short[] terrainHeights, int index) {
+		int altitudeShade = MathUtil.clamp(16 * terrainHeights[index] / 64, -50, 50);
+		pixelBuffer[index] = Color.shade(pixelBuffer[index], altitudeShade * 4);
+	}
+
 	private static void shade(int[] pixelBuffer, int[] waterPixels, short[] terrainHeights, short[] waterHeights, int scale) {
 		if (!ConfigProvider.WORLD.getShadeWater() || !ConfigProvider.WORLD.getShade()) {
 			waterHeights = terrainHeights;
@@ -206,56 +292,65 @@ public final class TileImage {
 
 		int size = Tile.SIZE / scale;
 
+		if (VECTOR_SHADE) {
+			VectorShade.shade(pixelBuffer, waterPixels, terrainHeights, waterHeights, size);
+			return;
+		}
+
 		int index = 0;
 		for (int z = 0; z < size; z++) {
 			for (int x = 0; x < size; x++, index++) {
-				float xShade, zShade;
-
-				if (pixelBuffer[index] == 0) {
-					continue;
-				}
+				shadePixel(pixelBuffer, waterPixels, terrainHeights, waterHeights, size, x, z, index);
+			}
+		}
+	}
 
-				if (terrainHeights[index] != waterHeights[index]) {
-					float ratio = 0.5f - 0.5f / 40f * (float) ((waterHeights[index]) - (terrainHeights[index]));
-					pixelBuffer[index] = Color.blend(pixelBuffer[index], waterPixels[index], ratio);
-				} else {
-					if (z == 0) {
-						zShade = (waterHeights[index + size]) - (waterHeights[index]);
-					} else if (z == size - 1) {
-						zShade = (waterHeights[index]) - (waterHeights[index - size]);
-					} else {
-						zShade = ((waterHeights[index + size]) - (waterHeights[index - size])) * 2;
-					}
+	static void shadePixel(int[] pixelBuffer, int[] waterPixels, short[] terrainHeights, short[] waterHeights, int size, int x, int z, int index) {
+		float xShade, zShade;
 
-					if (x == 0) {
-						xShade = (waterHeights[index + 1]) - (waterHeights[index]);
-					} else if (x == size - 1) {
-						xShade = (waterHeights[index]) - (waterHeights[index - 1]);
-					} else {
-						xShade = ((waterHeights[index + 1]) - (waterHeights[index - 1])) * 2;
-					}
+		if (pixelBuffer[index] == 0) {
+			return;
+		}
 
-					float shade = xShade + zShade;
-					if (shade < -8) {
-						shade = -8;
-					}
-					if (shade > 8) {
-						shade = 8;
-					}
+		if (terrainHeights[index] != waterHeights[index]) {
+			float ratio = 0.5f - 0.5f / 40f * (float) ((waterHeights[index]) - (terrainHeights[index]));
+			pixelBuffer[index] = Color.blend(pixelBuffer[index], waterPixels[index], ratio);
+		} else {
+			if (z == 0) {
+				zShade = (waterHeights[index + size]) - (waterHeights[index]);
+			} else if (z == size - 1) {
+				zShade = (waterHeights[index]) - (waterHeights[index - size]);
+			} else {
+				zShade = ((waterHeights[index + size]) - (waterHeights[index - size])) * 2;
+			}
 
-					int altitudeShade = 16 * (waterHeights[index] - 64) / 255;
-					if (altitudeShade < -4) {
-						altitudeShade = -4;
-					}
-					if (altitudeShade > 24) {
-						altitudeShade = 24;
-					}
+			if (x == 0) {
+				xShade = (waterHeights[index + 1]) - (waterHeights[index]);
+			} else if (x == size - 1) {
+				xShade = (waterHeights[index]) - (waterHeights[index - 1]);
+			} else {
+				xShade = ((waterHeights[index + 1]) - (waterHeights[index - 1])) * 2;
+			}
 
-					shade += altitudeShade;
+			float shade = xShade + zShade;
+			if (shade < -8) {
+				shade = -8;
+			}
+			if (shade > 8) {
+				shade = 8;
+			}
 
-					pixelBuffer[index] = Color.shade(pixelBuffer[index], (int) (shade * 8));
-				}
+			int altitudeShade = 16 * (waterHeights[index] - 64) / 255;
+			if (altitudeShade < -4) {
+				altitudeShade = -4;
+			}
+			if (altitudeShade > 24) {
+				altitudeShade = 24;
 			}
+
+			shade += altitudeShade;
+
+			pixelBuffer[index] = Color.shade(pixelBuffer[index], (int) (shade * 8));
 		}
 	}
 }
@@ -266,7 +266,10 @@ public class TileMap extends Canvas implements ClipboardOwner {
 					}
 				}, new Point2f(), () -> scale, Integer.MAX_VALUE);
 
-				tilePriorities = newTilePriorities;
+				if (!newTilePriorities.equals(tilePriorities)) {
+					tilePriorities = newTilePriorities;
+					JobHandler.updatePriorities();
+				}
 
 				Platform.runLater(this::runUpdateListeners);
 
@@ -0,0 +1,107 @@
+package net.querz.mcaselector.tile;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// vectorized versions of TileImage.shade() and TileImage.flatShade() that produce exactly the same pixels.
+// this class must only be loaded if the jdk.incubator.vector module is present.
+final class VectorShade {
+
+	private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+	// same number of lanes as INTS, so heights can be widened without reshuffling
+	private static final VectorSpecies<Short> SHORTS = VectorSpecies.of(short.class, VectorShape.forBitSize(INTS.vectorBitSize() / 2));
+
+	private VectorShade() {}
+
+	static boolean isAvailable() {
+		// narrower vectors are not worth the overhead
+		return INTS.length() >= 4;
+	}
+
+	static void flatShade(int[] pixelBuffer, short[] terrainHeights, int size) {
+		int pixels = size * size;
+		int upperBound = INTS.loopBound(pixels);
+		int index = 0;
+		for (; index < upperBound; index += INTS.length()) {
+			IntVector height = loadHeights(terrainHeights, index);
+			// 16 * h / 64, rounded towards zero like the integer division
+			IntVector altitudeShade = height.add(height.lanewise(VectorOperators.ASHR, 31).and(3))
+					.lanewise(VectorOperators.ASHR, 2)
+					.max(-50).min(50);
+			IntVector color = IntVector.fromArray(INTS, pixelBuffer, index);
+			shade(color, altitudeShade.mul(4)).intoArray(pixelBuffer, index);
+		}
+		for (; index < pixels; index++) {
+			TileImage.flatShadePixel(pixelBuffer, terrainHeights, index);
+		}
+	}
+
+	static void shade(int[] pixelBuffer, int[] waterPixels, short[] terrainHeights, short[] waterHeights, int size) {
+		int lanes = INTS.length();
+		for (int z = 0; z < size; z++) {
+			int row = z * size;
+			int x = 0;
+
+			// the first and last row and column compare against different neighbors and use the scalar path
+			if (z > 0 && z < size - 1) {
+				TileImage.shadePixel(pixelBuffer, waterPixels, terrainHeights, waterHeights, size, 0, z, row);
+				for (x = 1; x + lanes <= size - 1; x += lanes) {
+					shadeLanes(pixelBuffer, waterPixels, terrainHeights, waterHeights, size, x, z, row + x);
+				}
+			}
+
+			for (; x < size; x++) {
+				TileImage.shadePixel(pixelBuffer, waterPixels, terrainHeights, waterHeights, size, x, z, row + x);
+			}
+		}
+	}
+
+	private static void shadeLanes(int[] pixelBuffer, int[] waterPixels, short[] terrainHeights, short[] waterHeights, int size, int x, int z, int index) {
+		IntVector color = IntVector.fromArray(INTS, pixelBuffer, index);
+		IntVector height = loadHeights(waterHeights, index);
+		VectorMask<Integer> visible = color.compare(VectorOperators.NE, 0);
+		VectorMask<Integer> underWater = visible.and(loadHeights(terrainHeights, index).compare(VectorOperators.NE, height));
+		VectorMask<Integer> surface = visible.andNot(underWater);
+
+		if (surface.anyTrue()) {
+			IntVector xShade = loadHeights(waterHeights, index + 1).sub(loadHeights(waterHeights, index - 1));
+			IntVector zShade = loadHeights(waterHeights, index + size).sub(loadHeights(waterHeights, index - size));
+			IntVector shade = xShade.add(zShade).mul(2).max(-8).min(8);
+
+			// 16 * (h - 64) / 255 clamped to [-4, 24]. clamping the dividend first keeps it small enough
+			// to replace the division with a multiplication and a shift.
+			IntVector dividend = height.sub(64).mul(16).max(-1020).min(6120);
+			IntVector altitudeShade = dividend.abs().mul(8225).lanewise(VectorOperators.LSHR, 21)
+					.lanewise(VectorOperators.NEG, dividend.compare(VectorOperators.LT, 0));
+
+			color.blend(shade(color, shade.add(altitudeShade).mul(8)), surface).intoArray(pixelBuffer, index);
+		}
+
+		// blending with water is rare enough to not bother
+		if (underWater.anyTrue()) {
+			for (long lanes = underWater.toLong(); lanes != 0; lanes &= lanes - 1) {
+				int lane = Long.numberOfTrailingZeros(lanes);
+				TileImage.shadePixel(pixelBuffer, waterPixels, terrainHeights, waterHeights, size, x + lane, z, index + lane);
+			}
+		}
+	}
+
+	private static IntVector loadHeights(short[] heights, int index) {
+		return (IntVector) ShortVector.fromArray(SHORTS, heights, index).convertShape(VectorOperators.S2I, INTS, 0);
+	}
+
+	// same as Color.shade()
+	private static IntVector shade(IntVector color, IntVector amount) {
+		IntVector r = color.lanewise(VectorOperators.LSHR, 16).and(0xFF).add(amount).max(0).min(255);
+		IntVector g = color.lanewise(VectorOperators.LSHR, 8).and(0xFF).add(amount).max(0).min(255);
+		IntVector b = color.and(0xFF).add(amount).max(0).min(255);
+		return color.and(0xFF000000)
+				.or(r.lanewise(VectorOperators.LSHL, 16))
+				.or(g.lanewise(VectorOperators.LSHL, 8))
+				.or(b);
+	}
+}
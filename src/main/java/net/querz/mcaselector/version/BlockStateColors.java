@@ -0,0 +1,123 @@
+package net.querz.mcaselector.version;
+
+import net.querz.nbt.CompoundTag;
+import net.querz.nbt.StringTag;
+import net.querz.nbt.Tag;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+// interns block states to dense ids and caches their untinted color and tint type,
+// so renderers only need to resolve each palette entry once instead of every single block.
+public final class BlockStateColors {
+
+	public static final byte TINT_NONE = 0;
+	public static final byte TINT_GRASS = 1;
+	public static final byte TINT_FOLIAGE = 2;
+	public static final byte TINT_WATER = 3;
+
+	// block states interned by ColorMapping's default implementation, shared by all mappings without their own cache
+	private static final Map<Object, Integer> sharedIDs = new ConcurrentHashMap<>();
+	private static volatile Object[] sharedBlockStates = new Object[256];
+	private static int sharedSize = 0;
+
+	private final ToIntFunction<CompoundTag> colorFunction;
+	private final ToIntFunction<String> tintFunction;
+
+	private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+	private volatile int[] colors = new int[256];
+	private volatile byte[] tints = new byte[256];
+	private int size = 0;
+
+	// colorFunction returns the untinted color of a block state, tintFunction the tint type of a block name
+	public BlockStateColors(ToIntFunction<CompoundTag> colorFunction, ToIntFunction<String> tintFunction) {
+		this.colorFunction = colorFunction;
+		this.tintFunction = tintFunction;
+	}
+
+	public int getID(CompoundTag blockState) {
+		String key = createKey(blockState);
+		Integer id = ids.get(key);
+		if (id != null) {
+			return id;
+		}
+		synchronized (this) {
+			id = ids.get(key);
+			if (id != null) {
+				return id;
+			}
+			int newID = size;
+			int[] colors = this.colors;
+			byte[] tints = this.tints;
+			if (newID == colors.length) {
+				colors = Arrays.copyOf(colors, colors.length * 2);
+				tints = Arrays.copyOf(tints, tints.length * 2);
+			}
+			colors[newID] = colorFunction.applyAsInt(blockState);
+			tints[newID] = (byte) tintFunction.applyAsInt(Helper.stringFromCompound(blockState, "Name", ""));
+			this.colors = colors;
+			this.tints = tints;
+			size++;
+			// publish the id only after the color is visible
+			ids.put(key, newID);
+			return newID;
+		}
+	}
+
+	public int getColor(int id) {
+		return colors[id];
+	}
+
+	public byte getTint(int id) {
+		return tints[id];
+	}
+
+	// returns a shared id for a block state, which can be a block state tag or a legacy numeric block id
+	static int intern(Object blockState) {
+		Object key = blockState instanceof CompoundTag tag ? createKey(tag) : blockState;
+		Integer id = sharedIDs.get(key);
+		if (id != null) {
+			return id;
+		}
+		synchronized (BlockStateColors.class) {
+			id = sharedIDs.get(key);
+			if (id != null) {
+				return id;
+			}
+			int newID = sharedSize;
+			Object[] blockStates = sharedBlockStates;
+			if (newID == blockStates.length) {
+				blockStates = Arrays.copyOf(blockStates, blockStates.length * 2);
+			}
+			// copy tags so later changes to a palette don't change the interned block state
+			blockStates[newID] = blockState instanceof CompoundTag tag ? tag.copy() : blockState;
+			sharedBlockStates = blockStates;
+			sharedSize++;
+			sharedIDs.put(key, newID);
+			return newID;
+		}
+	}
+
+	static Object getInterned(int id) {
+		return sharedBlockStates[id];
+	}
+
+	// name and properties, e.g. "minecraft:oak_log[axis=y]".
+	// properties are not sorted, because the color of a block state may depend on their order.
+	private static String createKey(CompoundTag blockState) {
+		String name = Helper.stringFromCompound(blockState, "Name", "");
+		CompoundTag properties = Helper.tagFromCompound(blockState, "Properties");
+		if (properties == null || properties.size() == 0) {
+			return name;
+		}
+		List<String> values = new ArrayList<>(properties.size());
+		for (Map.Entry<String, Tag> property : properties) {
+			String value = property.getValue() instanceof StringTag s ? s.getValue() : String.valueOf(property.getValue());
+			values.add(property.getKey() + "=" + value);
+		}
+		return name + "[" + String.join(",", values) + "]";
+	}
+}
@@ -1,6 +1,7 @@
 package net.querz.mcaselector.version;
 
 import net.querz.mcaselector.io.registry.BiomeRegistry;
+import net.querz.mcaselector.io.registry.BlockRegistry;
 import net.querz.mcaselector.io.registry.StatusRegistry;
 import net.querz.mcaselector.range.Range;
 import net.querz.nbt.NBTUtil;
@@ -12,16 +13,16 @@ import java.util.Map;
 public interface ChunkFilter {
 
 	// returns true if ALL block names are present
-	boolean matchBlockNames(CompoundTag data, Collection<String> names);
+	boolean matchBlockNames(CompoundTag data, BlockRegistry.BlockSet names);
 
 	// returns true if ALL biomes are present
 	boolean matchBiomes(CompoundTag data, Collection<BiomeRegistry.BiomeIdentifier> biomes);
 
 	// returns true if AT LEAST ONE block name is present
-	boolean matchAnyBlockName(CompoundTag data, Collection<String> names);
+	boolean matchAnyBlockName(CompoundTag data, BlockRegistry.BlockSet names);
 
 	// returns true if the palette ONLY contains the block names, ignoring air
-	boolean paletteEquals(CompoundTag data, Collection<String> names);
+	boolean paletteEquals(CompoundTag data, BlockRegistry.BlockSet names);
 
 	// returns true if AT LEAST ONE biome is present
 	boolean matchAnyBiome(CompoundTag data, Collection<BiomeRegistry.BiomeIdentifier> biomes);
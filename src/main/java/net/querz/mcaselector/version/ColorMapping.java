@@ -14,6 +14,21 @@ public interface ColorMapping {
 
 	boolean isFoliage(Object o);
 
+	// returns a cached id for a block state that can be used with getBlockStateRGB,
+	// so the color of each distinct block state only needs to be resolved once.
+	// mappings that don't cache colors themselves only intern the block state and resolve its color on every call.
+	default int getBlockStateID(Object o) {
+		return BlockStateColors.intern(o);
+	}
+
+	default int getBlockStateRGB(int blockStateID, int biome) {
+		return getRGB(BlockStateColors.getInterned(blockStateID), biome);
+	}
+
+	default int getBlockStateRGB(int blockStateID, String biome) {
+		return getRGB(BlockStateColors.getInterned(blockStateID), biome);
+	}
+
 	default int applyTint(int color, int tint) {
 		int nr = (tint >> 16 & 0xFF) * (color >> 16 & 0xFF) >> 8;
 		int ng = (tint >> 8 & 0xFF) * (color >> 8 & 0xFF) >> 8;
@@ -1,9 +1,11 @@
 package net.querz.mcaselector.version;
 
+import net.querz.mcaselector.io.registry.BlockRegistry;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.point.Point3i;
 import net.querz.nbt.*;
 import java.util.Random;
+import java.util.function.Function;
 
 public final class Helper {
 
@@ -253,4 +255,66 @@ public final class Helper {
 		}
 		return max;
 	}
+
+	// the palette of each section is collected into a set of block ids and compared with the query as a bitset,
+	// so a palette entry only has to be looked up once instead of being compared with every block name of the query.
+
+	// returns true if ALL blocks of the query are in the palettes of the sections
+	public static boolean paletteContainsAll(ListTag sections, Function<CompoundTag, ListTag> getPalette, BlockRegistry.BlockSet names) {
+		BlockRegistry.BlockSet found = new BlockRegistry.BlockSet();
+		BlockRegistry.BlockSet section = new BlockRegistry.BlockSet();
+		for (CompoundTag t : sections.iterateType(CompoundTag.class)) {
+			if (!collectPalette(getPalette.apply(t), section)) {
+				continue;
+			}
+			found.addAll(section);
+			if (found.containsAll(names)) {
+				return true;
+			}
+		}
+		return found.containsAll(names);
+	}
+
+	// returns true if AT LEAST ONE block of the query is in the palettes of the sections
+	public static boolean paletteIntersects(ListTag sections, Function<CompoundTag, ListTag> getPalette, BlockRegistry.BlockSet names) {
+		BlockRegistry.BlockSet section = new BlockRegistry.BlockSet();
+		for (CompoundTag t : sections.iterateType(CompoundTag.class)) {
+			if (collectPalette(getPalette.apply(t), section) && section.intersects(names)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// returns true if the palettes of the sections contain exactly the blocks of the query
+	public static boolean paletteEquals(ListTag sections, Function<CompoundTag, ListTag> getPalette, BlockRegistry.BlockSet names) {
+		BlockRegistry.BlockSet found = new BlockRegistry.BlockSet();
+		BlockRegistry.BlockSet section = new BlockRegistry.BlockSet();
+		for (CompoundTag t : sections.iterateType(CompoundTag.class)) {
+			if (!collectPalette(getPalette.apply(t), section)) {
+				continue;
+			}
+			// there's a block in this section that we are not searching for
+			if (!names.containsAll(section)) {
+				return false;
+			}
+			found.addAll(section);
+		}
+		return found.equals(names);
+	}
+
+	// replaces the content of the set with the block names of the palette, returns false if there is no palette
+	private static boolean collectPalette(ListTag palette, BlockRegistry.BlockSet set) {
+		if (palette == null) {
+			return false;
+		}
+		set.clear();
+		for (CompoundTag p : palette.iterateType(CompoundTag.class)) {
+			String name = stringFromCompound(p, "Name");
+			if (name != null) {
+				set.add(name);
+			}
+		}
+		return true;
+	}
 }
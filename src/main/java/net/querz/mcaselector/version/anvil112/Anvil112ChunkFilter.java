@@ -1,6 +1,7 @@
 package net.querz.mcaselector.version.anvil112;
 
 import net.querz.mcaselector.io.registry.BiomeRegistry;
+import net.querz.mcaselector.io.registry.BlockRegistry;
 import net.querz.mcaselector.io.registry.StatusRegistry;
 import net.querz.mcaselector.range.Range;
 import net.querz.mcaselector.tile.Tile;
@@ -77,8 +78,23 @@ public class Anvil112ChunkFilter implements ChunkFilter {
 		}
 	}
 
+	// chunks before 1.13 don't have palettes, so the block names are mapped to block ids and searched in each section
 	@Override
-	public boolean matchBlockNames(CompoundTag data, Collection<String> names) {
+	public boolean matchBlockNames(CompoundTag data, BlockRegistry.BlockSet names) {
+		return matchBlockNames(data, names.getNames());
+	}
+
+	@Override
+	public boolean matchAnyBlockName(CompoundTag data, BlockRegistry.BlockSet names) {
+		return matchAnyBlockName(data, names.getNames());
+	}
+
+	@Override
+	public boolean paletteEquals(CompoundTag data, BlockRegistry.BlockSet names) {
+		return paletteEquals(data, names.getNames());
+	}
+
+	private boolean matchBlockNames(CompoundTag data, Collection<String> names) {
 		ListTag sections = Helper.tagFromLevelFromRoot(data, "Sections", null);
 		if (sections == null) {
 			return false;
@@ -118,8 +134,7 @@ public class Anvil112ChunkFilter implements ChunkFilter {
 		return names.size() == c;
 	}
 
-	@Override
-	public boolean matchAnyBlockName(CompoundTag data, Collection<String> names) {
+	private boolean matchAnyBlockName(CompoundTag data, Collection<String> names) {
 		ListTag sections = Helper.tagFromLevelFromRoot(data, "Sections", null);
 		if (sections == null) {
 			return false;
@@ -156,8 +171,7 @@ public class Anvil112ChunkFilter implements ChunkFilter {
 		return false;
 	}
 
-	@Override
-	public boolean paletteEquals(CompoundTag data, Collection<String> names) {
+	private boolean paletteEquals(CompoundTag data, Collection<String> names) {
 		ListTag sections = Helper.tagFromLevelFromRoot(data, "Sections", null);
 		if (sections == null) {
 			return false;
@@ -1,6 +1,7 @@
 package net.querz.mcaselector.version.anvil113;
 
 import net.querz.mcaselector.io.registry.BiomeRegistry;
+import net.querz.mcaselector.io.registry.BlockRegistry;
 import net.querz.mcaselector.io.registry.StatusRegistry;
 import net.querz.mcaselector.math.Bits;
 import net.querz.mcaselector.point.Point2i;
@@ -15,86 +16,30 @@ import java.util.*;
 public class Anvil113ChunkFilter implements ChunkFilter {
 
 	@Override
-	public boolean matchBlockNames(CompoundTag data, Collection<String> names) {
+	public boolean matchBlockNames(CompoundTag data, BlockRegistry.BlockSet names) {
 		ListTag sections = Helper.tagFromLevelFromRoot(data, "Sections", null);
 		if (sections == null) {
 			return false;
 		}
-
-		int c = 0;
-		nameLoop:
-		for (String name : names) {
-			for (CompoundTag t : sections.iterateType(CompoundTag.class)) {
-				ListTag palette = Helper.tagFromCompound(t, "Palette", null);
-				if (palette == null) {
-					continue;
-				}
-				for (CompoundTag p : palette.iterateType(CompoundTag.class)) {
-					if (name.equals(Helper.stringFromCompound(p, "Name"))) {
-						c++;
-						continue nameLoop;
-					}
-				}
-			}
-		}
-		return names.size() == c;
+		return Helper.paletteContainsAll(sections, t -> Helper.tagFromCompound(t, "Palette", null), names);
 	}
 
 	@Override
-	public boolean matchAnyBlockName(CompoundTag data, Collection<String> names) {
+	public boolean matchAnyBlockName(CompoundTag data, BlockRegistry.BlockSet names) {
 		ListTag sections = Helper.tagFromLevelFromRoot(data, "Sections", null);
 		if (sections == null) {
 			return false;
 		}
-
-		for (String name : names) {
-			for (CompoundTag t : sections.iterateType(CompoundTag.class)) {
-				ListTag palette = Helper.tagFromCompound(t, "Palette", null);
-				if (palette == null) {
-					continue;
-				}
-				for (CompoundTag p : palette.iterateType(CompoundTag.class)) {
-					if (name.equals(Helper.stringFromCompound(p, "Name"))) {
-						return true;
-					}
-				}
-			}
-		}
-		return false;
+		return Helper.paletteIntersects(sections, t -> Helper.tagFromCompound(t, "Palette", null), names);
 	}
 
 	@Override
-	public boolean paletteEquals(CompoundTag data, Collection<String> names) {
+	public boolean paletteEquals(CompoundTag data, BlockRegistry.BlockSet names) {
 		ListTag sections = Helper.tagFromLevelFromRoot(data, "Sections", null);
 		if (sections == null) {
 			return false;
 		}
-
-		Set<String> blocks = new HashSet<>();
-		for (CompoundTag t : sections.iterateType(CompoundTag.class)) {
-			ListTag palette = Helper.tagFromCompound(t, "Palette", null);
-			if (palette == null) {
-				continue;
-			}
-			for (CompoundTag p : palette.iterateType(CompoundTag.class)) {
-				String n;
-				if ((n = Helper.stringFromCompound(p, "Name")) != null) {
-					if (!names.contains(n)) {
-						return false;
-					}
-					blocks.add(n);
-				}
-			}
-		}
-		if (blocks.size() != names.size()) {
-			return false;
-		}
-		for (String name : names) {
-			if (!blocks.contains(name)) {
-				return false;
-			}
-		}
-		return true;
+		return Helper.paletteEquals(sections, t -> Helper.tagFromCompound(t, "Palette", null), names);
 	}
 
 	@Override
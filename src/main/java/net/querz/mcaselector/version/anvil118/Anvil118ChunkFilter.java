@@ -1,6 +1,7 @@
 package net.querz.mcaselector.version.anvil118;
 
 import net.querz.mcaselector.io.registry.BiomeRegistry;
+import net.querz.mcaselector.io.registry.BlockRegistry;
 import net.querz.mcaselector.io.registry.StatusRegistry;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.point.Point3i;
@@ -14,7 +15,7 @@ import java.util.*;
 public class Anvil118ChunkFilter extends Anvil117ChunkFilter {
 
 	@Override
-	public boolean matchBlockNames(CompoundTag data, Collection<String> names) {
+	public boolean matchBlockNames(CompoundTag data, BlockRegistry.BlockSet names) {
 		Integer dataVersion = Helper.intFromCompound(data, "DataVersion");
 		if (dataVersion == null) {
 			return false;
@@ -24,28 +25,11 @@ public class Anvil118ChunkFilter extends Anvil117ChunkFilter {
 		if (sections == null) {
 			return false;
 		}
-
-		int c = 0;
-		nameLoop:
-		for (String name : names) {
-			for (CompoundTag t : sections.iterateType(CompoundTag.class)) {
-				ListTag palette = LegacyHelper.getPalette(t, dataVersion);
-				if (palette == null) {
-					continue;
-				}
-				for (CompoundTag p : palette.iterateType(CompoundTag.class)) {
-					if (name.equals(Helper.stringFromCompound(p, "Name"))) {
-						c++;
-						continue nameLoop;
-					}
-				}
-			}
-		}
-		return names.size() == c;
+		return Helper.paletteContainsAll(sections, t -> LegacyHelper.getPalette(t, dataVersion), names);
 	}
 
 	@Override
-	public boolean matchAnyBlockName(CompoundTag data, Collection<String> names) {
+	public boolean matchAnyBlockName(CompoundTag data, BlockRegistry.BlockSet names) {
 		Integer dataVersion = Helper.intFromCompound(data, "DataVersion");
 		if (dataVersion == null) {
 			return false;
@@ -55,25 +39,11 @@ public class Anvil118ChunkFilter extends Anvil117ChunkFilter {
 		if (sections == null) {
 			return false;
 		}
-
-		for (String name : names) {
-			for (CompoundTag t : sections.iterateType(CompoundTag.class)) {
-				ListTag palette = LegacyHelper.getPalette(t, dataVersion);
-				if (palette == null) {
-					continue;
-				}
-				for (CompoundTag p : palette.iterateType(CompoundTag.class)) {
-					if (name.equals(Helper.stringFromCompound(p, "Name"))) {
-						return true;
-					}
-				}
-			}
-		}
-		return false;
+		return Helper.paletteIntersects(sections, t -> LegacyHelper.getPalette(t, dataVersion), names);
 	}
 
 	@Override
-	public boolean paletteEquals(CompoundTag data, Collection<String> names) {
+	public boolean paletteEquals(CompoundTag data, BlockRegistry.BlockSet names) {
 		Integer dataVersion = Helper.intFromCompound(data, "DataVersion");
 		if (dataVersion == null) {
 			return false;
@@ -83,32 +53,7 @@ public class Anvil118ChunkFilter extends Anvil117ChunkFilter {
 		if (sections == null) {
 			return false;
 		}
-
-		Set<String> blocks = new HashSet<>();
-		for (CompoundTag t : sections.iterateType(CompoundTag.class)) {
-			ListTag palette = LegacyHelper.getPalette(t, dataVersion);
-			if (palette == null) {
-				continue;
-			}
-			for (CompoundTag p : palette.iterateType(CompoundTag.class)) {
-				String n;
-				if ((n = Helper.stringFromCompound(p, "Name")) != null) {
-					if (!names.contains(n)) {
-						return false;
-					}
-					blocks.add(n);
-				}
-			}
-		}
-		if (blocks.size() != names.size()) {
-			return false;
-		}
-		for (String name : names) {
-			if (!blocks.contains(name)) {
-				return false;
-			}
-		}
-		return true;
+		return Helper.paletteEquals(sections, t -> LegacyHelper.getPalette(t, dataVersion), names);
 	}
 
 	@Override
@@ -7,6 +7,7 @@ import net.querz.mcaselector.version.ChunkRenderer;
 import net.querz.mcaselector.version.ColorMapping;
 import net.querz.mcaselector.version.Helper;
 import net.querz.nbt.*;
+import java.util.Arrays;
 import static net.querz.mcaselector.validation.ValidationHelper.silent;
 
 public class Anvil118ChunkRenderer implements ChunkRenderer {
@@ -31,6 +32,10 @@ public class Anvil118ChunkRenderer implements ChunkRenderer {
 		long[][] blockStatesArray = new long[sMax][];
 		ListTag[] biomePalettes = new ListTag[sMax];
 		long[][] biomesArray = new long[sMax][];
+		int[][] blockStateIDs = new int[sMax][];
+		byte[][] blockFlags = new byte[sMax][];
+		int waterDummyID = colorMapping.getBlockStateID(waterDummy);
+		byte[][] columnTops = new byte[sMax][];
 		for (CompoundTag s : sections.iterateType(CompoundTag.class)) {
 			ListTag p = LegacyHelper.getPalette(s, dataVersion);
 			long[] b = LegacyHelper.getBlockStates(s, dataVersion);
@@ -39,6 +44,7 @@ public class Anvil118ChunkRenderer implements ChunkRenderer {
 			if (y >= -4 && y < yMax && p != null) {
 				palettes[y + 4] = p;
 				blockStatesArray[y + 4] = b;
+				resolvePalette(p, colorMapping, y + 4, blockStateIDs, blockFlags);
 
 				if (dataVersion >= 2834) {
 					biomePalettes[y + 4] = Helper.tagFromCompound(Helper.tagFromCompound(s, "biomes"), "palette");
@@ -61,6 +67,8 @@ public class Anvil118ChunkRenderer implements ChunkRenderer {
 						continue;
 					}
 					long[] blockStates = blockStatesArray[i];
+					int[] ids = blockStateIDs[i];
+					byte[] flags = blockFlags[i];
 
 					int sectionHeight = (i - 4) * Tile.CHUNK_SIZE;
 
@@ -82,13 +90,22 @@ public class Anvil118ChunkRenderer implements ChunkRenderer {
 						startHeight = Tile.CHUNK_SIZE - 1;
 					}
 
+					if (startHeight == Tile.CHUNK_SIZE - 1) {
+						// start at the highest non-empty block of this column, or skip the section if there is none
+						if (columnTops[i] == null) {
+							columnTops[i] = getColumnTops(blockStates, flags, bits, clean);
+						}
+						startHeight = columnTops[i][cz * Tile.CHUNK_SIZE + cx];
+					}
+
 					for (int cy = startHeight; cy >= 0; cy--) {
 						int paletteIndex = getPaletteIndex(getIndex(cx, cy, cz), blockStates, bits, clean);
-						CompoundTag blockData = palette.getCompound(paletteIndex);
+						byte flag = flags[paletteIndex];
 
-						if (isEmpty(blockData)) {
+						if ((flag & FLAG_EMPTY) != 0) {
 							continue;
 						}
+						int blockStateID = ids[paletteIndex];
 
 						int biomeLegacy = -1;
 						String biome = "";
@@ -102,23 +119,23 @@ public class Anvil118ChunkRenderer implements ChunkRenderer {
 						int regionIndex = (z + cz / scale) * (Tile.SIZE / scale) + (x + cx / scale);
 						if (water) {
 							if (!waterDepth) {
-								pixelBuffer[regionIndex] = dataVersion >= 2834 ? colorMapping.getRGB(blockData, biome) : colorMapping.getRGB(blockData, biomeLegacy); // water color
+								pixelBuffer[regionIndex] = dataVersion >= 2834 ? colorMapping.getBlockStateRGB(blockStateID, biome) : colorMapping.getBlockStateRGB(blockStateID, biomeLegacy); // water color
 								waterHeights[regionIndex] = (short) (sectionHeight + cy); // height of highest water or terrain block
 							}
-							if (isWater(blockData)) {
+							if ((flag & FLAG_WATER) != 0) {
 								waterDepth = true;
 								continue;
-							} else if (isWaterlogged(blockData)) {
-								pixelBuffer[regionIndex] = dataVersion >= 2834 ? colorMapping.getRGB(waterDummy, biome) : colorMapping.getRGB(waterDummy, biomeLegacy); // water color
-								waterPixels[regionIndex] = dataVersion >= 2834 ? colorMapping.getRGB(blockData, biome) : colorMapping.getRGB(blockData, biomeLegacy); // color of waterlogged block
+							} else if ((flag & FLAG_WATERLOGGED) != 0) {
+								pixelBuffer[regionIndex] = dataVersion >= 2834 ? colorMapping.getBlockStateRGB(waterDummyID, biome) : colorMapping.getBlockStateRGB(waterDummyID, biomeLegacy); // water color
+								waterPixels[regionIndex] = dataVersion >= 2834 ? colorMapping.getBlockStateRGB(blockStateID, biome) : colorMapping.getBlockStateRGB(blockStateID, biomeLegacy); // color of waterlogged block
 								waterHeights[regionIndex] = (short) (sectionHeight + cy);
 								terrainHeights[regionIndex] = (short) (sectionHeight + cy - 1); // "height" of bottom of water, which will just be 1 block lower so shading works
 								continue zLoop;
 							} else {
-								waterPixels[regionIndex] = dataVersion >= 2834 ? colorMapping.getRGB(blockData, biome) : colorMapping.getRGB(blockData, biomeLegacy); // color of block at bottom of water
+								waterPixels[regionIndex] = dataVersion >= 2834 ? colorMapping.getBlockStateRGB(blockStateID, biome) : colorMapping.getBlockStateRGB(blockStateID, biomeLegacy); // color of block at bottom of water
 							}
 						} else {
-							pixelBuffer[regionIndex] = dataVersion >= 2834 ? colorMapping.getRGB(blockData, biome) : colorMapping.getRGB(blockData, biomeLegacy);
+							pixelBuffer[regionIndex] = dataVersion >= 2834 ? colorMapping.getBlockStateRGB(blockStateID, biome) : colorMapping.getBlockStateRGB(blockStateID, biomeLegacy);
 						}
 						terrainHeights[regionIndex] = (short) (sectionHeight + cy); // height of bottom of water
 						continue zLoop;
@@ -334,6 +351,76 @@ public class Anvil118ChunkRenderer implements ChunkRenderer {
 		return minData;
 	}
 
+	private static final byte FLAG_EMPTY = 0x1;
+	private static final byte FLAG_WATER = 0x2;
+	private static final byte FLAG_WATERLOGGED = 0x4;
+
+	// resolves the color ids and the properties that are relevant for rendering once per palette entry
+	private void resolvePalette(ListTag palette, ColorMapping colorMapping, int index, int[][] blockStateIDs, byte[][] blockFlags) {
+		int[] ids = new int[palette.size()];
+		byte[] flags = new byte[palette.size()];
+		for (int i = 0; i < palette.size(); i++) {
+			CompoundTag blockData = palette.getCompound(i);
+			ids[i] = colorMapping.getBlockStateID(blockData);
+			if (isEmpty(blockData)) {
+				flags[i] |= FLAG_EMPTY;
+			}
+			if (isWater(blockData)) {
+				flags[i] |= FLAG_WATER;
+			}
+			if (isWaterlogged(blockData)) {
+				flags[i] |= FLAG_WATERLOGGED;
+			}
+		}
+		blockStateIDs[index] = ids;
+		blockFlags[index] = flags;
+	}
+
+	// returns the y coordinate of the highest non-empty block for each column of a section or -1.
+	// walks the packed block states word by word and skips words of air in bulk.
+	private byte[] getColumnTops(long[] blockStates, byte[] flags, int bits, int clean) {
+		byte[] tops = new byte[Tile.CHUNK_SIZE * Tile.CHUNK_SIZE];
+		Arrays.fill(tops, (byte) -1);
+
+		boolean allEmpty = true;
+		for (byte flag : flags) {
+			if ((flag & FLAG_EMPTY) == 0) {
+				allEmpty = false;
+				break;
+			}
+		}
+		if (allEmpty) {
+			return tops;
+		}
+
+		if (blockStates == null) {
+			// the section only consists of the first palette entry
+			Arrays.fill(tops, (byte) (Tile.CHUNK_SIZE - 1));
+			return tops;
+		}
+
+		// a word of zeroes only contains the first palette entry
+		boolean zeroIsEmpty = (flags[0] & FLAG_EMPTY) != 0;
+		int indicesPerLong = (int) (64D / bits);
+		int blocks = Tile.CHUNK_SIZE * Tile.CHUNK_SIZE * Tile.CHUNK_SIZE;
+		int index = 0;
+		for (int w = 0; w < blockStates.length && index < blocks; w++) {
+			long word = blockStates[w];
+			if (word == 0 && zeroIsEmpty) {
+				index += indicesPerLong;
+				continue;
+			}
+			for (int k = 0; k < indicesPerLong && index < blocks; k++, index++) {
+				int paletteIndex = (int) (word >> k * bits) & clean;
+				// indices are ordered by y, so the last non-empty block of a column is the highest
+				if (paletteIndex >= flags.length || (flags[paletteIndex] & FLAG_EMPTY) == 0) {
+					tops[index & 0xFF] = (byte) (index >> 8);
+				}
+			}
+		}
+		return tops;
+	}
+
 	private static final CompoundTag waterDummy = new CompoundTag();
 
 	static {
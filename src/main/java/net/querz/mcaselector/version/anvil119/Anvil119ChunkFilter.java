@@ -1,6 +1,7 @@
 package net.querz.mcaselector.version.anvil119;
 
 import net.querz.mcaselector.io.registry.BiomeRegistry;
+import net.querz.mcaselector.io.registry.BlockRegistry;
 import net.querz.mcaselector.io.registry.StatusRegistry;
 import net.querz.mcaselector.point.Point2i;
 import net.querz.mcaselector.point.Point3i;
@@ -14,86 +15,30 @@ import java.util.*;
 public class Anvil119ChunkFilter extends Anvil117ChunkFilter {
 
 	@Override
-	public boolean matchBlockNames(CompoundTag data, Collection<String> names) {
+	public boolean matchBlockNames(CompoundTag data, BlockRegistry.BlockSet names) {
 		ListTag sections = Helper.tagFromCompound(data, "sections");
 		if (sections == null) {
 			return false;
 		}
-
-		int c = 0;
-		nameLoop:
-		for (String name : names) {
-			for (CompoundTag t : sections.iterateType(CompoundTag.class)) {
-				ListTag palette = Helper.tagFromCompound(Helper.tagFromCompound(t, "block_states"), "palette");
-				if (palette == null) {
-					continue;
-				}
-				for (CompoundTag p : palette.iterateType(CompoundTag.class)) {
-					if (name.equals(Helper.stringFromCompound(p, "Name"))) {
-						c++;
-						continue nameLoop;
-					}
-				}
-			}
-		}
-		return names.size() == c;
+		return Helper.paletteContainsAll(sections, t -> Helper.tagFromCompound(Helper.tagFromCompound(t, "block_states"), "palette"), names);
 	}
 
 	@Override
-	public boolean matchAnyBlockName(CompoundTag data, Collection<String> names) {
+	public boolean matchAnyBlockName(CompoundTag data, BlockRegistry.BlockSet names) {
 		ListTag sections = Helper.tagFromCompound(data, "sections");
 		if (sections == null) {
 			return false;
 		}
-
-		for (String name : names) {
-			for (CompoundTag t : sections.iterateType(CompoundTag.class)) {
-				ListTag palette = Helper.tagFromCompound(Helper.tagFromCompound(t, "block_states"), "palette");
-				if (palette == null) {
-					continue;
-				}
-				for (CompoundTag p : palette.iterateType(CompoundTag.class)) {
-					if (name.equals(Helper.stringFromCompound(p, "Name"))) {
-						return true;
-					}
-				}
-			}
-		}
-		return false;
+		return Helper.paletteIntersects(sections, t -> Helper.tagFromCompound(Helper.tagFromCompound(t, "block_states"), "palette"), names);
 	}
 
 	@Override
-	public boolean paletteEquals(CompoundTag data, Collection<String> names) {
+	public boolean paletteEquals(CompoundTag data, BlockRegistry.BlockSet names) {
 		ListTag sections = Helper.tagFromCompound(data, "sections");
 		if (sections == null) {
 			return false;
 		}
-
-		Set<String> blocks = new HashSet<>();
-		for (CompoundTag t : sections.iterateType(CompoundTag.class)) {
-			ListTag palette = Helper.tagFromCompound(Helper.tagFromCompound(t, "block_states"), "palette");
-			if (palette == null) {
-				continue;
-			}
-			for (CompoundTag p : palette.iterateType(CompoundTag.class)) {
-				String n;
-				if ((n = Helper.stringFromCompound(p, "Name")) != null) {
-					if (!names.contains(n)) {
-						return false;
-					}
-					blocks.add(n);
-				}
-			}
-		}
-		if (blocks.size() != names.size()) {
-			return false;
-		}
-		for (String name : names) {
-			if (!blocks.contains(name)) {
-				return false;
-			}
-		}
-		return true;
+		return Helper.paletteEquals(sections, t -> Helper.tagFromCompound(Helper.tagFromCompound(t, "block_states"), "palette"), names);
 	}
 
 	@Override
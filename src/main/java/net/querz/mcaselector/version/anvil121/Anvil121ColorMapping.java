@@ -1,6 +1,7 @@
 package net.querz.mcaselector.version.anvil121;
 
 import net.querz.mcaselector.text.TextHelper;
+import net.querz.mcaselector.version.BlockStateColors;
 import net.querz.mcaselector.version.ColorMapping;
 import net.querz.mcaselector.version.Helper;
 import net.querz.nbt.CompoundTag;
@@ -26,6 +27,8 @@ public class Anvil121ColorMapping implements ColorMapping {
 	private final Map<String, Integer> biomeFoliageTints = new HashMap<>();
 	private final Map<String, Integer> biomeWaterTints = new HashMap<>();
 
+	private final BlockStateColors blockStateColors = new BlockStateColors(this::getBaseColor, this::getTintType);
+
 	public Anvil121ColorMapping() {
 		// note_block:pitch=1,powered=true,instrument=flute;01ab9f
 		try (BufferedReader bis = new BufferedReader(
@@ -117,6 +120,49 @@ public class Anvil121ColorMapping implements ColorMapping {
 		return 0xFF000000;
 	}
 
+	@Override
+	public int getBlockStateID(Object o) {
+		return blockStateColors.getID((CompoundTag) o);
+	}
+
+	@Override
+	public int getBlockStateRGB(int blockStateID, int biome) {
+		throw new UnsupportedOperationException("this version does not support numeric biome ids");
+	}
+
+	@Override
+	public int getBlockStateRGB(int blockStateID, String biome) {
+		int color = blockStateColors.getColor(blockStateID);
+		return switch (blockStateColors.getTint(blockStateID)) {
+			case BlockStateColors.TINT_GRASS -> applyTint(color, biomeGrassTints.getOrDefault(biome, DEFAULT_GRASS_TINT));
+			case BlockStateColors.TINT_FOLIAGE -> applyTint(color, biomeFoliageTints.getOrDefault(biome, DEFAULT_FOLIAGE_TINT));
+			case BlockStateColors.TINT_WATER -> applyTint(color, biomeWaterTints.getOrDefault(biome, DEFAULT_WATER_TINT));
+			default -> color;
+		};
+	}
+
+	// color without biome tint
+	private int getBaseColor(CompoundTag blockState) {
+		Object value = mapping.get(Helper.stringFromCompound(blockState, "Name", ""));
+		if (value instanceof Integer) {
+			return (int) value;
+		} else if (value instanceof BlockStateMapping) {
+			return ((BlockStateMapping) value).getColor(Helper.tagFromCompound(blockState, "Properties"));
+		}
+		return 0xFF000000;
+	}
+
+	private int getTintType(String name) {
+		if (grass.contains(name)) {
+			return BlockStateColors.TINT_GRASS;
+		} else if (foliage.contains(name)) {
+			return BlockStateColors.TINT_FOLIAGE;
+		} else if (name.equals("minecraft:water")) {
+			return BlockStateColors.TINT_WATER;
+		}
+		return BlockStateColors.TINT_NONE;
+	}
+
 	@Override
 	public boolean isFoliage(Object name) {
 		if (foliage.contains((String) name)) {